@@ -0,0 +1,79 @@
+package hudson.plugins.gradle;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compares the ways of scanning a complete log file for build scans, as done by {@code findBuildScans}:
+ * reading decoded lines, reading raw lines from a stream and searching the memory-mapped file.
+ * <p>
+ * Run with {@code ./gradlew jmh -PjmhIncludes=BuildScanLogReaderBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class BuildScanLogReaderBenchmark {
+
+    @Param({"100", "1024"})
+    public int logSizeMegabytes;
+
+    private Path logFile;
+
+    @Setup
+    public void setUp() {
+        logFile = GradleLogs.writeTemporaryLog(logSizeMegabytes * 1024L * 1024L);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(logFile);
+    }
+
+    @Benchmark
+    public void decodedLines(Blackhole blackhole) throws IOException {
+        LegacyBuildScanLogScanner scanner = new LegacyBuildScanLogScanner(blackhole::consume);
+        try (
+            BufferedReader logReader = Files.newBufferedReader(logFile, StandardCharsets.UTF_8);
+            Stream<String> lines = logReader.lines()
+        ) {
+            lines.forEach(scanner::scanLine);
+        }
+    }
+
+    @Benchmark
+    public long rawLines(Blackhole blackhole) throws IOException {
+        BuildScanLogScanner scanner = new BuildScanLogScanner(blackhole::consume);
+        try (InputStream log = Files.newInputStream(logFile)) {
+            return BuildScanLogReader.scan(log, StandardCharsets.UTF_8, scanner, true);
+        }
+    }
+
+    @Benchmark
+    public long mappedFile(Blackhole blackhole) throws IOException {
+        BuildScanLogScanner scanner = new BuildScanLogScanner(blackhole::consume);
+        return BuildScanLogReader.scan(logFile, 0, StandardCharsets.UTF_8, scanner, true);
+    }
+}
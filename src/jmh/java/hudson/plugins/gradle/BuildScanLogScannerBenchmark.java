@@ -0,0 +1,83 @@
+package hudson.plugins.gradle;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the regular expression based build scan scanner with the hand-written one, on a synthesized log
+ * of one million lines.
+ * <p>
+ * Scores are lines per second. Run with {@code ./gradlew jmh -PjmhIncludes=BuildScanLogScannerBenchmark} and add
+ * {@code -prof gc} to the JMH arguments to get the bytes allocated per line ({@code gc.alloc.rate.norm}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BuildScanLogScannerBenchmark {
+
+    private static final int LINES = 1_000_000;
+
+    private byte[] log;
+    private int[] lineStarts;
+    private String[] lines;
+
+    @Setup
+    public void setUp() {
+        log = GradleLogs.synthesizeLines(LINES);
+        lineStarts = new int[LINES + 1];
+        lines = new String[LINES];
+        int line = 0;
+        for (int i = 0; i < log.length; i++) {
+            if (log[i] == '\n') {
+                lineStarts[line + 1] = i + 1;
+                // Like the lines decoded by the console annotator, the strings only lack the line separator,
+                // while the byte scanner gets the raw line
+                lines[line] = new String(log, lineStarts[line], i - lineStarts[line], StandardCharsets.UTF_8);
+                line++;
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void regexScanner(Blackhole blackhole) {
+        LegacyBuildScanLogScanner scanner = new LegacyBuildScanLogScanner(blackhole::consume);
+        for (String line : lines) {
+            scanner.scanLine(line);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void handWrittenScanner(Blackhole blackhole) {
+        BuildScanLogScanner scanner = new BuildScanLogScanner(blackhole::consume);
+        for (String line : lines) {
+            scanner.scanLine(line);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void handWrittenByteScanner(Blackhole blackhole) {
+        BuildScanLogScanner scanner = new BuildScanLogScanner(blackhole::consume);
+        for (int line = 0; line < LINES; line++) {
+            scanner.scanLine(log, lineStarts[line], lineStarts[line + 1] - lineStarts[line], StandardCharsets.UTF_8);
+        }
+    }
+}
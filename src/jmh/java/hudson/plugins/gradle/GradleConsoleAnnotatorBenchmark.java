@@ -0,0 +1,73 @@
+package hudson.plugins.gradle;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares classifying console lines on the byte level with decoding every line.
+ * <p>
+ * Run with {@code ./gradlew jmh -PjmhIncludes=GradleConsoleAnnotatorBenchmark}. A recorded log can be used instead
+ * of the synthesized one by setting the {@code recordedLog} parameter to its path. Add {@code -prof gc} to the JMH
+ * arguments to compare the allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GradleConsoleAnnotatorBenchmark {
+
+    private static final int CHUNK_SIZE = 8192;
+
+    @Param({"8"})
+    public int logSizeMegabytes;
+
+    @Param({""})
+    public String recordedLog;
+
+    @Param({"true", "false"})
+    public boolean annotateGradleOutput;
+
+    private byte[] log;
+
+    @Setup
+    public void setUp() {
+        log = GradleLogs.load(recordedLog, logSizeMegabytes);
+    }
+
+    @Benchmark
+    public void decodeEveryLine(Blackhole blackhole) throws IOException {
+        copyLog(new LegacyGradleConsoleAnnotator(
+            new BlackholeOutputStream(blackhole), StandardCharsets.UTF_8, annotateGradleOutput, blackhole::consume));
+    }
+
+    @Benchmark
+    public void classifyBytes(Blackhole blackhole) throws IOException {
+        copyLog(new GradleConsoleAnnotator(
+            new BlackholeOutputStream(blackhole), StandardCharsets.UTF_8, annotateGradleOutput, blackhole::consume));
+    }
+
+    private void copyLog(OutputStream annotator) throws IOException {
+        // Write in chunks, as the process output is forwarded to the annotator
+        for (int offset = 0; offset < log.length; offset += CHUNK_SIZE) {
+            annotator.write(log, offset, Math.min(CHUNK_SIZE, log.length - offset));
+        }
+        annotator.close();
+    }
+}
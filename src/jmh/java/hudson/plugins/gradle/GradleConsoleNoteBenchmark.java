@@ -0,0 +1,65 @@
+package hudson.plugins.gradle;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost per line of annotating a task heavy log of 50k {@code > Task :} lines, where every line gets
+ * a {@link GradleTaskNote}: encoding a new note for every line compared with writing the note bytes encoded once.
+ * <p>
+ * Scores are nanoseconds per line. Run with {@code ./gradlew jmh -PjmhIncludes=GradleConsoleNoteBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GradleConsoleNoteBenchmark {
+
+    private static final int LINES = 50_000;
+    private static final int CHUNK_SIZE = 8192;
+
+    private byte[] log;
+
+    @Setup
+    public void setUp() {
+        log = GradleLogs.synthesizeTaskLines(LINES);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void encodeEveryNote(Blackhole blackhole) throws IOException {
+        copyLog(new LegacyGradleConsoleAnnotator(
+            new BlackholeOutputStream(blackhole), StandardCharsets.UTF_8, true, blackhole::consume));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void writeEncodedNote(Blackhole blackhole) throws IOException {
+        copyLog(new GradleConsoleAnnotator(
+            new BlackholeOutputStream(blackhole), StandardCharsets.UTF_8, true, blackhole::consume));
+    }
+
+    private void copyLog(OutputStream annotator) throws IOException {
+        for (int offset = 0; offset < log.length; offset += CHUNK_SIZE) {
+            annotator.write(log, offset, Math.min(CHUNK_SIZE, log.length - offset));
+        }
+        annotator.close();
+    }
+}
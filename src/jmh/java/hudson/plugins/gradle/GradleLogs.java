@@ -0,0 +1,129 @@
+package hudson.plugins.gradle;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Console logs used by the benchmarks.
+ * <p>
+ * Either loads a recorded Gradle log, or synthesizes a log which resembles the console output of a multi-project
+ * build using the plain console: task headers with outcomes, compiler and test output, build outcomes and published
+ * build scans.
+ */
+final class GradleLogs {
+
+    private static final String[] OUTCOMES = {"", "", " UP-TO-DATE", " FROM-CACHE", " NO-SOURCE", " SKIPPED"};
+    private static final String[] TASKS = {"compileJava", "processResources", "classes", "compileTestJava", "test", "jar"};
+
+    private GradleLogs() {
+    }
+
+    /**
+     * Returns the contents of {@code recordedLog} if set, a synthesized log of roughly {@code megabytes} otherwise.
+     */
+    static byte[] load(String recordedLog, int megabytes) {
+        if (recordedLog != null && !recordedLog.isEmpty()) {
+            try {
+                return Files.readAllBytes(Paths.get(recordedLog));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return synthesize(megabytes * 1024L * 1024L);
+    }
+
+    /**
+     * Synthesizes a log with exactly {@code count} lines.
+     */
+    static byte[] synthesizeLines(int count) {
+        byte[] log = synthesize(count * 48L);
+        while (true) {
+            int lines = 0;
+            for (int i = 0; i < log.length; i++) {
+                if (log[i] == '\n' && ++lines == count) {
+                    return Arrays.copyOf(log, i + 1);
+                }
+            }
+            log = synthesize(log.length * 2L);
+        }
+    }
+
+    /**
+     * Synthesizes a log of {@code count} task lines, as written by a build with many projects.
+     */
+    static byte[] synthesizeTaskLines(int count) {
+        Random random = new Random(42);
+        ByteArrayOutputStream log = new ByteArrayOutputStream(count * 48);
+        for (int i = 0; i < count; i++) {
+            append(log, "> Task :project-" + i / TASKS.length + ":" + TASKS[i % TASKS.length] + OUTCOMES[random.nextInt(OUTCOMES.length)]);
+        }
+        return log.toByteArray();
+    }
+
+    /**
+     * Writes a synthesized log of at least {@code size} bytes to a temporary file, without holding it in memory.
+     */
+    static Path writeTemporaryLog(long size) {
+        try {
+            Path logFile = Files.createTempFile("gradle-benchmark", ".log");
+            logFile.toFile().deleteOnExit();
+            byte[] chunk = synthesize(8 * 1024 * 1024);
+            try (OutputStream out = Files.newOutputStream(logFile)) {
+                for (long written = 0; written < size; written += chunk.length) {
+                    out.write(chunk);
+                }
+            }
+            return logFile;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static byte[] synthesize(long size) {
+        Random random = new Random(42);
+        ByteArrayOutputStream log = new ByteArrayOutputStream((int) size + 4096);
+        int build = 0;
+        while (log.size() < size) {
+            appendBuild(log, random, build++);
+        }
+        return log.toByteArray();
+    }
+
+    private static void appendBuild(ByteArrayOutputStream log, Random random, int build) {
+        append(log, "+ ./gradlew build --console=plain");
+        append(log, "Starting a Gradle Daemon (subsequent builds will be faster)");
+        for (int project = 0; project < 40; project++) {
+            for (String task : TASKS) {
+                append(log, "> Task :project-" + project + ":" + task + OUTCOMES[random.nextInt(OUTCOMES.length)]);
+                int outputLines = random.nextInt(6);
+                for (int i = 0; i < outputLines; i++) {
+                    append(log, "    com.example.project" + project + ".SomeTest > someTestMethod" + i + "() PASSED");
+                }
+                if (random.nextInt(10) == 0) {
+                    append(log, "Note: Some input files use unchecked or unsafe operations.");
+                    append(log, "Note: Recompile with -Xlint:unchecked for details.");
+                }
+            }
+        }
+        append(log, "");
+        append(log, build % 5 == 0 ? "BUILD FAILED in 2m 14s" : "BUILD SUCCESSFUL in 1m 3s");
+        append(log, "240 actionable tasks: 97 executed, 143 up-to-date");
+        append(log, "");
+        append(log, "Publishing build scan...");
+        append(log, "https://gradle.com/s/" + Integer.toHexString(build * 7919 + 104729));
+        append(log, "");
+    }
+
+    private static void append(ByteArrayOutputStream log, String line) {
+        byte[] bytes = (line + "\n").getBytes(StandardCharsets.UTF_8);
+        log.write(bytes, 0, bytes.length);
+    }
+}
@@ -0,0 +1,71 @@
+package hudson.plugins.gradle;
+
+import hudson.MarkupText;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures rendering a console page of 100k lines, where the task lines are annotated by {@link GradleTaskNote}:
+ * the regular expression based annotation compared with parsing the task lines in a single pass.
+ * <p>
+ * Scores are milliseconds per page. Run with {@code ./gradlew jmh -PjmhIncludes=GradleTaskNoteBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GradleTaskNoteBenchmark {
+
+    private static final int LINES = 100_000;
+
+    private final GradleTaskNote note = new GradleTaskNote();
+
+    private String[] lines;
+    private boolean[] taskLines;
+
+    @Setup
+    public void setUp() {
+        // Keep the line separators, as the console page does
+        lines = new String(GradleLogs.synthesizeLines(LINES), StandardCharsets.UTF_8).split("(?<=\n)");
+        taskLines = new boolean[lines.length];
+        for (int i = 0; i < lines.length; i++) {
+            taskLines[i] = lines[i].startsWith(":") || lines[i].startsWith("> Task :");
+        }
+    }
+
+    @Benchmark
+    public void regularExpressions(Blackhole blackhole) {
+        for (int i = 0; i < lines.length; i++) {
+            MarkupText text = new MarkupText(lines[i]);
+            if (taskLines[i]) {
+                LegacyGradleTaskNote.annotate(text);
+            }
+            blackhole.consume(text.toString(true));
+        }
+    }
+
+    @Benchmark
+    public void singlePass(Blackhole blackhole) {
+        for (int i = 0; i < lines.length; i++) {
+            MarkupText text = new MarkupText(lines[i]);
+            if (taskLines[i]) {
+                note.annotate(null, text, 0);
+            }
+            blackhole.consume(text.toString(true));
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package hudson.plugins.gradle;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The build scan scanner as it was before the regular expressions were replaced, used as the benchmark baseline.
+ */
+final class LegacyBuildScanLogScanner {
+
+    private static final Pattern BUILD_SCAN_PATTERN = Pattern.compile("Publishing (build scan|build information)\\.\\.\\.");
+    private static final Pattern URL_PATTERN = Pattern.compile("https?://\\S*");
+
+    private final BuildScanPublishedListener listener;
+    private int linesSinceBuildScanPublishingMessage = Integer.MAX_VALUE;
+
+    LegacyBuildScanLogScanner(BuildScanPublishedListener listener) {
+        this.listener = listener;
+    }
+
+    void scanLine(String line) {
+        if (linesSinceBuildScanPublishingMessage < 10) {
+            linesSinceBuildScanPublishingMessage++;
+            Matcher matcher = URL_PATTERN.matcher(line);
+            if (matcher.find()) {
+                linesSinceBuildScanPublishingMessage = Integer.MAX_VALUE;
+                String buildScanUrl = matcher.group();
+                listener.onBuildScanPublished(buildScanUrl);
+            }
+        }
+        if (BUILD_SCAN_PATTERN.matcher(line).find()) {
+            linesSinceBuildScanPublishingMessage = 0;
+        }
+    }
+}
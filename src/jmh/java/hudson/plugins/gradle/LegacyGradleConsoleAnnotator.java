@@ -0,0 +1,60 @@
+package hudson.plugins.gradle;
+
+import hudson.console.LineTransformationOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * The console annotator as it was before lines were classified on the byte level, used as the benchmark baseline:
+ * every line is decoded, checked with {@link String#startsWith(String)} and scanned with regular expressions.
+ */
+final class LegacyGradleConsoleAnnotator extends LineTransformationOutputStream {
+
+    private static final int MAX_LINE_LENGTH = 500;
+
+    private final OutputStream out;
+    private final Charset charset;
+    private final boolean annotateGradleOutput;
+    private final LegacyBuildScanLogScanner buildScanLogScanner;
+
+    LegacyGradleConsoleAnnotator(OutputStream out,
+                                 Charset charset,
+                                 boolean annotateGradleOutput,
+                                 BuildScanPublishedListener buildScanListener) {
+        this.out = out;
+        this.charset = charset;
+        this.annotateGradleOutput = annotateGradleOutput;
+        this.buildScanLogScanner = new LegacyBuildScanLogScanner(buildScanListener);
+    }
+
+    @Override
+    protected void eol(byte[] b, int len) throws IOException {
+        if (len < MAX_LINE_LENGTH) {
+            String line = charset.decode(ByteBuffer.wrap(b, 0, len)).toString();
+            line = trimEOL(line);
+
+            if (annotateGradleOutput) {
+                if (line.startsWith(":") || line.startsWith("> Task :")) {
+                    new GradleTaskNote().encodeTo(out);
+                }
+
+                if (line.startsWith("BUILD SUCCESSFUL") || line.startsWith("BUILD FAILED")) {
+                    new GradleOutcomeNote().encodeTo(out);
+                }
+            }
+
+            buildScanLogScanner.scanLine(line);
+        }
+
+        out.write(b, 0, len);
+    }
+
+    @Override
+    public void close() throws IOException {
+        super.close();
+        out.close();
+    }
+}
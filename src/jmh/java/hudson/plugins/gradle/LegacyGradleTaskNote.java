@@ -0,0 +1,55 @@
+package hudson.plugins.gradle;
+
+import hudson.MarkupText;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.regex.Pattern;
+
+/**
+ * {@link GradleTaskNote#annotate} as it was before task lines were parsed in a single pass, used as the benchmark
+ * baseline: both task line formats are matched with regular expressions and the progress status is looked up in a set.
+ */
+final class LegacyGradleTaskNote {
+
+    private static final Collection<String> progressStatuses = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "UP-TO-DATE",
+            "SKIPPED",
+            "FROM-CACHE",
+            "NO-SOURCE"
+    )));
+
+    private static final Pattern TASK_PATTERN_1 = Pattern.compile("^:([^:]\\S*)(\\s*)(\\S*)");
+    private static final Pattern TASK_PATTERN_2 = Pattern.compile("^> Task :([^:]\\S*)(\\s*)(\\S*)");
+
+    private LegacyGradleTaskNote() {
+    }
+
+    static void annotate(MarkupText text) {
+        int prefixLength = 1;
+        MarkupText.SubText t = text.findToken(TASK_PATTERN_1);
+        if (t == null) {
+            t = text.findToken(TASK_PATTERN_2);
+            prefixLength = 8;
+        }
+        if (t == null) {
+            return;
+        }
+
+        String task = t.group(1);
+        String delimiterSpace = t.group(2);
+        String progressStatus = t.group(3);
+
+        if (task != null && !task.isEmpty()) {
+            t.addMarkup(1, task.length() + prefixLength, "<b class=gradle-task>", "</b>");
+        }
+        if (progressStatus != null && !progressStatus.isEmpty()
+                && progressStatuses.contains(progressStatus)) {
+            t.addMarkup(task.length() + delimiterSpace.length() + prefixLength,
+                    text.length(), "<span class=gradle-task-progress-status>",
+                    "</span>");
+        }
+    }
+}
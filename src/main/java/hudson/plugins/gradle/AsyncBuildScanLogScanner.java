@@ -0,0 +1,171 @@
+package hudson.plugins.gradle;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+
+import java.nio.charset.Charset;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Scans the lines for build scans on a background thread, so writing the console log doesn't wait for it.
+ * <p>
+ * Lines are copied into a bounded pool of reused buffers, which are queued until a shared pool of daemon threads
+ * scanned them. When all buffers are queued, the writing thread blocks until the background thread returned one.
+ * {@link #flush()} returns once all queued lines have been scanned.
+ */
+class AsyncBuildScanLogScanner extends BuildScanLogScanner {
+
+    private static final Logger LOGGER = Logger.getLogger(AsyncBuildScanLogScanner.class.getName());
+
+    static boolean ENABLED = Boolean.getBoolean(AsyncBuildScanLogScanner.class.getName() + ".enabled");
+
+    private static final int QUEUE_CAPACITY = 1024;
+
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(
+        new NamingThreadFactory(new DaemonThreadFactory(), AsyncBuildScanLogScanner.class.getSimpleName()));
+
+    private final BlockingQueue<Line> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    // Buffers of scanned lines, reused for the next lines
+    private final BlockingQueue<Line> free = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    // Only used by the writing thread
+    private int allocated;
+
+    // Lines passed to the scanner which have not been scanned yet
+    private final AtomicInteger pending = new AtomicInteger();
+    // Set while a thread is scanning the queued lines, lines are scanned by one thread at a time and in order
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    private final Lock lock = new ReentrantLock();
+    private final Condition scanned = lock.newCondition();
+
+    AsyncBuildScanLogScanner(BuildScanPublishedListener listener) {
+        super(listener);
+    }
+
+    @Override
+    void scanLine(CharSequence line) {
+        Line buffer = takeBuffer();
+        buffer.set(line);
+        enqueue(buffer);
+    }
+
+    @Override
+    void scanLine(byte[] b, int off, int len, Charset charset) {
+        Line buffer = takeBuffer();
+        buffer.set(b, off, len, charset);
+        enqueue(buffer);
+    }
+
+    @Override
+    void flush() {
+        if (pending.get() == 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            while (pending.get() > 0) {
+                // Scanning a line can't block, so the wait is always short
+                scanned.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Line takeBuffer() {
+        Line buffer = free.poll();
+        if (buffer != null) {
+            return buffer;
+        }
+        if (allocated < QUEUE_CAPACITY) {
+            allocated++;
+            return new Line();
+        }
+        // The background thread doesn't keep up, wait until it scanned a line instead of growing the queue
+        return Uninterruptibles.takeUninterruptibly(free);
+    }
+
+    private void enqueue(Line line) {
+        pending.incrementAndGet();
+        // Never full, there are no more buffers than the queue can hold
+        queue.add(line);
+
+        if (draining.compareAndSet(false, true)) {
+            EXECUTOR.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        do {
+            Line line;
+            while ((line = queue.poll()) != null) {
+                try {
+                    scan(line);
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Failed to scan a console line for build scans", e);
+                } finally {
+                    free.add(line);
+                    if (pending.decrementAndGet() == 0) {
+                        signalScanned();
+                    }
+                }
+            }
+            draining.set(false);
+            // Lines queued after the last poll, but before the flag was cleared, would not be drained otherwise
+        } while (!queue.isEmpty() && draining.compareAndSet(false, true));
+    }
+
+    private void scan(Line line) {
+        if (line.charset != null) {
+            super.scanLine(line.bytes, 0, line.length, line.charset);
+        } else {
+            super.scanLine(line.text);
+        }
+    }
+
+    private void signalScanned() {
+        lock.lock();
+        try {
+            scanned.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * A line waiting to be scanned, either as bytes in a charset or as text.
+     */
+    private static final class Line {
+
+        private byte[] bytes = new byte[256];
+        private int length;
+        private Charset charset;
+        private final StringBuilder text = new StringBuilder();
+
+        void set(byte[] b, int off, int len, Charset charset) {
+            if (bytes.length < len) {
+                bytes = new byte[Math.max(len, bytes.length * 2)];
+            }
+            System.arraycopy(b, off, bytes, 0, len);
+            this.length = len;
+            this.charset = charset;
+        }
+
+        void set(CharSequence line) {
+            text.setLength(0);
+            text.append(line);
+            this.charset = null;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package hudson.plugins.gradle;
+
+import com.google.common.io.ByteStreams;
+import hudson.model.InvisibleAction;
+import hudson.model.Run;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Remembers how far the log of a run has been scanned for build scans, so {@code findBuildScans} only has to scan
+ * the output written since its previous invocation.
+ */
+public class BuildScanLogCheckpoint extends InvisibleAction {
+
+    private static final Object LOCK = new Object();
+
+    private long offset;
+    private int linesSinceBuildScanPublishingMessage = Integer.MAX_VALUE;
+
+    static BuildScanLogCheckpoint forRun(Run<?, ?> run) {
+        synchronized (LOCK) {
+            BuildScanLogCheckpoint checkpoint = run.getAction(BuildScanLogCheckpoint.class);
+            if (checkpoint == null) {
+                checkpoint = new BuildScanLogCheckpoint();
+                run.addAction(checkpoint);
+            }
+            return checkpoint;
+        }
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Scans the log of the run written since the checkpoint and moves the checkpoint to the end of the scanned output.
+     * The run is saved if the checkpoint moved, so it isn't scanned again after a restart.
+     */
+    synchronized void scanNewOutput(Run<?, ?> run) throws IOException {
+        long scannedOffset = offset;
+        if (!scanFromOffset(run)) {
+            // The log is shorter than what has been scanned already, so it has been replaced
+            offset = 0;
+            linesSinceBuildScanPublishingMessage = Integer.MAX_VALUE;
+            scanFromOffset(run);
+        }
+        if (offset != scannedOffset) {
+            run.save();
+        }
+    }
+
+    private boolean scanFromOffset(Run<?, ?> run) throws IOException {
+        BuildScanLogScanner scanner =
+            new BuildScanLogScanner(new DefaultBuildScanPublishedListener(run), linesSinceBuildScanPublishingMessage);
+        boolean logComplete = !run.isLogUpdated();
+        Charset charset = run.getCharset();
+
+        long consumed;
+        File logFile = BuildScanLogReader.getLogFile(run);
+        if (logFile.isFile() && GradleConsoleLineClassifier.supports(charset)) {
+            if (logFile.length() < offset) {
+                return false;
+            }
+            consumed = BuildScanLogReader.scan(logFile.toPath(), offset, charset, scanner, logComplete);
+        } else {
+            try (InputStream log = run.getLogInputStream()) {
+                try {
+                    ByteStreams.skipFully(log, offset);
+                } catch (EOFException e) {
+                    return false;
+                }
+                consumed = BuildScanLogReader.scan(log, charset, scanner, logComplete);
+            }
+        }
+
+        offset += consumed;
+        linesSinceBuildScanPublishingMessage = scanner.getLinesSinceBuildScanPublishingMessage();
+        return true;
+    }
+}
@@ -0,0 +1,319 @@
+package hudson.plugins.gradle;
+
+import hudson.console.LineTransformationOutputStream;
+import hudson.model.Run;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Feeds the lines of a raw console log to a {@link BuildScanLogScanner}.
+ */
+final class BuildScanLogReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int URL_LOOKAHEAD_BUFFER_SIZE = 8 * 1024;
+    private static final int MAX_MAPPED_REGION_SIZE = 256 * 1024 * 1024;
+    private static final int READ_REGION_SIZE = 1024 * 1024;
+
+    // Same location as Run#getLogFile, which must not be called for pipeline runs
+    private static final String LOG_FILE_NAME = "log";
+
+    // Common prefix of "Publishing build scan..." and "Publishing build information..."
+    private static final byte[] PUBLISHING_BUILD = "Publishing build ".getBytes(StandardCharsets.US_ASCII);
+
+    private BuildScanLogReader() {
+    }
+
+    static File getLogFile(Run<?, ?> run) {
+        return new File(run.getRootDir(), LOG_FILE_NAME);
+    }
+
+    /**
+     * Scans the log until its end and returns the number of bytes consumed.
+     * <p>
+     * If the log is not complete yet, a trailing line without a line separator is not scanned and not counted
+     * as consumed, so it is scanned as a whole by the next invocation.
+     */
+    static long scan(InputStream log, Charset charset, BuildScanLogScanner scanner, boolean logComplete) throws IOException {
+        LineScanner lineScanner = new LineScanner(charset, scanner);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = log.read(buffer)) != -1) {
+            lineScanner.write(buffer, 0, read);
+        }
+        if (logComplete) {
+            lineScanner.forceEol();
+        }
+        return lineScanner.consumed;
+    }
+
+    /**
+     * Scans the log file from {@code offset} until its current end and returns the number of bytes consumed,
+     * same as {@link #scan(InputStream, Charset, BuildScanLogScanner, boolean)}.
+     * <p>
+     * The file is searched for the "Publishing build" message on the byte level, only the lines following a message
+     * are copied and scanned. A complete log is memory-mapped. A log which is still written is read into a buffer
+     * instead, because a mapped file stays mapped until the buffer is garbage collected, which keeps it locked on
+     * Windows. Must only be used for charsets which encode ASCII characters as single bytes,
+     * see {@link GradleConsoleLineClassifier#supports(Charset)}.
+     */
+    static long scan(Path logFile, long offset, Charset charset, BuildScanLogScanner scanner, boolean logComplete) throws IOException {
+        return scan(logFile, offset, charset, scanner, logComplete, logComplete ? MAX_MAPPED_REGION_SIZE : READ_REGION_SIZE);
+    }
+
+    /**
+     * Non-private for use in tests, to make lines cross the regions.
+     */
+    static long scan(Path logFile,
+                     long offset,
+                     Charset charset,
+                     BuildScanLogScanner scanner,
+                     boolean logComplete,
+                     int maxRegionSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = offset;
+            MappedRegionScanner regionScanner = new MappedRegionScanner(charset, scanner);
+            ByteBuffer buffer = logComplete ? null : ByteBuffer.allocate((int) Math.min(maxRegionSize, size - Math.min(offset, size)));
+            while (position < size) {
+                int regionSize = (int) Math.min(maxRegionSize, size - position);
+                ByteBuffer region;
+                if (logComplete) {
+                    region = channel.map(FileChannel.MapMode.READ_ONLY, position, regionSize);
+                } else {
+                    regionSize = readFully(channel, buffer, position, regionSize);
+                    if (regionSize == 0) {
+                        break;
+                    }
+                    buffer.limit(regionSize);
+                    region = buffer;
+                }
+                boolean lastRegion = position + regionSize >= size;
+
+                int consumed = regionScanner.scan(region, lastRegion && logComplete);
+                if (lastRegion) {
+                    position += consumed;
+                    break;
+                }
+                // A region without any line separator is skipped, the line is too long to contain anything useful
+                position += consumed > 0 ? consumed : regionSize;
+            }
+            return position - offset;
+        }
+    }
+
+    /**
+     * Finds the last {@code maxScans} build scans in the log file and returns them in log order.
+     * <p>
+     * The file is read backwards in blocks and searched for the "Publishing build" message, the lines following
+     * a message are scanned forward for its build scan URL. Stops once {@code maxScans} build scans are found or
+     * {@code maxBytes} bytes have been read, so the time taken does not depend on the size of the log.
+     * Must only be used for charsets which encode ASCII characters as single bytes,
+     * see {@link GradleConsoleLineClassifier#supports(Charset)}.
+     */
+    static List<String> scanFromEnd(Path logFile, Charset charset, int maxScans, long maxBytes, boolean logComplete) throws IOException {
+        List<String> scanUrls = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+            ByteBuffer block = ByteBuffer.allocate(BUFFER_SIZE);
+            long budget = maxBytes;
+            long blockEnd = channel.size();
+            while (blockEnd > 0 && budget > 0 && scanUrls.size() < maxScans) {
+                long blockStart = Math.max(0, blockEnd - Math.min(BUFFER_SIZE, budget));
+                int blockSize = readFully(channel, block, blockStart, (int) (blockEnd - blockStart));
+                budget -= blockSize;
+
+                List<Integer> messages = new ArrayList<>();
+                int from = 0;
+                int message;
+                while ((message = GradleConsoleLineClassifier.indexOf(block.array(), from, blockSize, PUBLISHING_BUILD)) >= 0) {
+                    messages.add(message);
+                    from = message + 1;
+                }
+                for (int i = messages.size() - 1; i >= 0 && budget > 0 && scanUrls.size() < maxScans; i--) {
+                    List<String> found = new ArrayList<>(1);
+                    budget -= scanForBuildScanUrl(channel, blockStart + messages.get(i), charset, found::add, budget, logComplete);
+                    if (!found.isEmpty() && !scanUrls.contains(found.get(0))) {
+                        scanUrls.add(found.get(0));
+                    }
+                }
+
+                if (blockStart == 0) {
+                    break;
+                }
+                // Overlap with the previous block, so a message crossing the block boundary is found in this block
+                blockEnd = blockStart + PUBLISHING_BUILD.length - 1;
+            }
+        }
+        Collections.reverse(scanUrls);
+        return scanUrls;
+    }
+
+    /**
+     * Scans the lines starting at the "Publishing build" message at {@code position} until the build scan URL is found,
+     * and returns the number of bytes read.
+     */
+    private static long scanForBuildScanUrl(FileChannel channel,
+                                            long position,
+                                            Charset charset,
+                                            BuildScanPublishedListener listener,
+                                            long maxBytes,
+                                            boolean logComplete) throws IOException {
+        BuildScanLogScanner scanner = new BuildScanLogScanner(listener);
+        LineScanner lineScanner = new LineScanner(charset, scanner);
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(URL_LOOKAHEAD_BUFFER_SIZE, maxBytes));
+        long read = 0;
+        int n;
+        do {
+            n = readFully(channel, buffer, position + read, (int) Math.min(buffer.capacity(), maxBytes - read));
+            lineScanner.write(buffer.array(), 0, n);
+            read += n;
+        } while (n > 0 && read < maxBytes && scanner.isScanningForBuildScanUrl());
+        if (n == 0 && logComplete) {
+            lineScanner.forceEol();
+        }
+        return read;
+    }
+
+    /**
+     * Reads up to {@code length} bytes at {@code position} into the buffer, fewer only at the end of the file.
+     */
+    private static int readFully(FileChannel channel, ByteBuffer buffer, long position, int length) throws IOException {
+        buffer.clear();
+        buffer.limit(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+        return buffer.position();
+    }
+
+    /**
+     * Scans the lines of a region of the log, which is either memory-mapped or read into a buffer.
+     */
+    private static final class MappedRegionScanner {
+
+        private final Charset charset;
+        private final BuildScanLogScanner scanner;
+        private byte[] line = new byte[1024];
+
+        MappedRegionScanner(Charset charset, BuildScanLogScanner scanner) {
+            this.charset = charset;
+            this.scanner = scanner;
+        }
+
+        /**
+         * Returns the number of bytes consumed, which are all complete lines of the region, or the whole region
+         * if {@code scanIncompleteLine} is set.
+         */
+        int scan(ByteBuffer region, boolean scanIncompleteLine) {
+            int limit = region.limit();
+            int lineStart = 0;
+            while (lineStart < limit) {
+                if (!scanner.isScanningForBuildScanUrl()) {
+                    // Lines without the message cannot change the scanner state, so skip to the next message
+                    int message = indexOf(region, lineStart, limit, PUBLISHING_BUILD);
+                    if (message < 0) {
+                        return scanIncompleteLine ? limit : lastIndexOf(region, lineStart, limit, (byte) '\n') + 1;
+                    }
+                    lineStart = lastIndexOf(region, lineStart, message, (byte) '\n') + 1;
+                }
+
+                int lineEnd = indexOf(region, lineStart, limit, (byte) '\n') + 1;
+                if (lineEnd == 0) {
+                    if (!scanIncompleteLine) {
+                        return lineStart;
+                    }
+                    lineEnd = limit;
+                }
+                scanLine(region, lineStart, lineEnd);
+                lineStart = lineEnd;
+            }
+            return limit;
+        }
+
+        private void scanLine(ByteBuffer region, int start, int end) {
+            int len = end - start;
+            if (line.length < len) {
+                line = new byte[Math.max(len, line.length * 2)];
+            }
+            region.position(start);
+            region.get(line, 0, len);
+            scanner.scanLine(line, 0, len, charset);
+        }
+
+        private static int indexOf(ByteBuffer buffer, int from, int to, byte b) {
+            for (int i = from; i < to; i++) {
+                if (buffer.get(i) == b) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Returns the index of the last {@code b} in {@code [from, to)}, or {@code from - 1} if there is none.
+         */
+        private static int lastIndexOf(ByteBuffer buffer, int from, int to, byte b) {
+            for (int i = to - 1; i >= from; i--) {
+                if (buffer.get(i) == b) {
+                    return i;
+                }
+            }
+            return from - 1;
+        }
+
+        private static int indexOf(ByteBuffer buffer, int from, int to, byte[] needle) {
+            byte first = needle[0];
+            int max = to - needle.length;
+            for (int i = from; i <= max; i++) {
+                if (buffer.get(i) != first) {
+                    continue;
+                }
+                int j = 1;
+                while (j < needle.length && buffer.get(i + j) == needle[j]) {
+                    j++;
+                }
+                if (j == needle.length) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    private static final class LineScanner extends LineTransformationOutputStream {
+
+        private final Charset charset;
+        private final boolean classifyBytes;
+        private final BuildScanLogScanner scanner;
+        private long consumed;
+
+        LineScanner(Charset charset, BuildScanLogScanner scanner) {
+            this.charset = charset;
+            this.classifyBytes = GradleConsoleLineClassifier.supports(charset);
+            this.scanner = scanner;
+        }
+
+        @Override
+        protected void eol(byte[] b, int len) {
+            if (classifyBytes) {
+                scanner.scanLine(b, 0, len, charset);
+            } else {
+                scanner.scanLine(trimEOL(charset.decode(ByteBuffer.wrap(b, 0, len)).toString()));
+            }
+            consumed += len;
+        }
+    }
+}
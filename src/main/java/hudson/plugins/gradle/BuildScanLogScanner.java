@@ -1,31 +1,221 @@
 package hudson.plugins.gradle;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 
+/**
+ * Finds the build scan URLs in a console log, line by line.
+ * <p>
+ * Once a "Publishing build scan..." (or "Publishing build information...") message is found, the first URL
+ * within the next 10 lines is reported as the published build scan. Lines are matched by hand instead of with
+ * regular expressions, so scanning a line doesn't allocate unless a build scan URL is found.
+ */
 public class BuildScanLogScanner {
+
+    private static final int MAX_LINES_UNTIL_URL = 10;
+
+    private static final String PUBLISHING_BUILD = "Publishing build ";
+    private static final String[] PUBLISHING_BUILD_SUFFIXES = {"scan...", "information..."};
+    private static final String HTTP = "http";
+    private static final String SCHEME_SEPARATOR = "://";
+
+    private static final byte[] PUBLISHING_BUILD_BYTES = ascii(PUBLISHING_BUILD);
+    private static final byte[][] PUBLISHING_BUILD_SUFFIXES_BYTES = {ascii(PUBLISHING_BUILD_SUFFIXES[0]), ascii(PUBLISHING_BUILD_SUFFIXES[1])};
+    private static final byte[] HTTP_BYTES = ascii(HTTP);
+    private static final byte[] SCHEME_SEPARATOR_BYTES = ascii(SCHEME_SEPARATOR);
+
     private final BuildScanPublishedListener listener;
-    private int linesSinceBuildScanPublishingMessage = Integer.MAX_VALUE;
-    private static final Pattern BUILD_SCAN_PATTERN = Pattern.compile("Publishing (build scan|build information)\\.\\.\\.");
-    private static final Pattern URL_PATTERN = Pattern.compile("https?://\\S*");
+    private int linesSinceBuildScanPublishingMessage;
 
     public BuildScanLogScanner(BuildScanPublishedListener listener) {
+        this(listener, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a scanner which continues where a previous scanner stopped, see {@link #getLinesSinceBuildScanPublishingMessage()}.
+     */
+    BuildScanLogScanner(BuildScanPublishedListener listener, int linesSinceBuildScanPublishingMessage) {
         this.listener = listener;
+        this.linesSinceBuildScanPublishingMessage = linesSinceBuildScanPublishingMessage;
+    }
+
+    int getLinesSinceBuildScanPublishingMessage() {
+        return linesSinceBuildScanPublishingMessage;
     }
 
-    void scanLine(String line) {
-        if (linesSinceBuildScanPublishingMessage < 10) {
+    /**
+     * Returns {@code true} while the lines following a "Publishing build scan..." message are searched for the build scan URL.
+     */
+    boolean isScanningForBuildScanUrl() {
+        return linesSinceBuildScanPublishingMessage < MAX_LINES_UNTIL_URL;
+    }
+
+    void scanLine(CharSequence line) {
+        if (isScanningForBuildScanUrl()) {
             linesSinceBuildScanPublishingMessage++;
-            Matcher matcher = URL_PATTERN.matcher(line);
-            if (matcher.find()) {
+            int urlStart = indexOfUrl(line);
+            if (urlStart >= 0) {
                 linesSinceBuildScanPublishingMessage = Integer.MAX_VALUE;
-                String buildScanUrl = matcher.group();
+                String buildScanUrl = line.subSequence(urlStart, endOfUrl(line, urlStart)).toString();
                 listener.onBuildScanPublished(buildScanUrl);
             }
         }
-        if (BUILD_SCAN_PATTERN.matcher(line).find()) {
+        if (containsPublishingMessage(line)) {
             linesSinceBuildScanPublishingMessage = 0;
         }
+    }
+
+    /**
+     * Scans a line without decoding it, only a found build scan URL is decoded.
+     * Must only be used for charsets which encode ASCII characters as single bytes, see {@link GradleConsoleLineClassifier#supports(Charset)}.
+     */
+    void scanLine(byte[] b, int off, int len, Charset charset) {
+        int end = off + len;
+        if (isScanningForBuildScanUrl()) {
+            linesSinceBuildScanPublishingMessage++;
+            int urlStart = indexOfUrl(b, off, end);
+            if (urlStart >= 0) {
+                linesSinceBuildScanPublishingMessage = Integer.MAX_VALUE;
+                String buildScanUrl = new String(b, urlStart, endOfUrl(b, urlStart, end) - urlStart, charset);
+                listener.onBuildScanPublished(buildScanUrl);
+            }
+        }
+        if (containsPublishingMessage(b, off, end)) {
+            linesSinceBuildScanPublishingMessage = 0;
+        }
+    }
+
+    /**
+     * Returns once all lines passed to this scanner have been scanned, which is always the case since lines are
+     * scanned synchronously. See {@link AsyncBuildScanLogScanner}.
+     */
+    void flush() {
+    }
+
+    private static boolean containsPublishingMessage(CharSequence line) {
+        int from = 0;
+        int index;
+        while ((index = indexOf(line, from, PUBLISHING_BUILD)) >= 0) {
+            int suffixStart = index + PUBLISHING_BUILD.length();
+            for (String suffix : PUBLISHING_BUILD_SUFFIXES) {
+                if (regionMatches(line, suffixStart, suffix)) {
+                    return true;
+                }
+            }
+            from = index + 1;
+        }
+        return false;
+    }
+
+    private static boolean containsPublishingMessage(byte[] b, int off, int end) {
+        int from = off;
+        int index;
+        while ((index = GradleConsoleLineClassifier.indexOf(b, from, end, PUBLISHING_BUILD_BYTES)) >= 0) {
+            int suffixStart = index + PUBLISHING_BUILD_BYTES.length;
+            for (byte[] suffix : PUBLISHING_BUILD_SUFFIXES_BYTES) {
+                if (regionMatches(b, suffixStart, end, suffix)) {
+                    return true;
+                }
+            }
+            from = index + 1;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the start of the first {@code http://} or {@code https://} URL in the line, or {@code -1}.
+     */
+    private static int indexOfUrl(CharSequence line) {
+        int from = 0;
+        int index;
+        while ((index = indexOf(line, from, HTTP)) >= 0) {
+            int separatorStart = index + HTTP.length();
+            if (separatorStart < line.length() && line.charAt(separatorStart) == 's') {
+                separatorStart++;
+            }
+            if (regionMatches(line, separatorStart, SCHEME_SEPARATOR)) {
+                return index;
+            }
+            from = index + 1;
+        }
+        return -1;
+    }
+
+    private static int indexOfUrl(byte[] b, int off, int end) {
+        int from = off;
+        int index;
+        while ((index = GradleConsoleLineClassifier.indexOf(b, from, end, HTTP_BYTES)) >= 0) {
+            int separatorStart = index + HTTP_BYTES.length;
+            if (separatorStart < end && b[separatorStart] == 's') {
+                separatorStart++;
+            }
+            if (regionMatches(b, separatorStart, end, SCHEME_SEPARATOR_BYTES)) {
+                return index;
+            }
+            from = index + 1;
+        }
+        return -1;
+    }
+
+    private static int endOfUrl(CharSequence line, int urlStart) {
+        int end = urlStart;
+        while (end < line.length() && !isWhitespace(line.charAt(end))) {
+            end++;
+        }
+        return end;
+    }
+
+    private static int endOfUrl(byte[] b, int urlStart, int end) {
+        int urlEnd = urlStart;
+        while (urlEnd < end && !isWhitespace(b[urlEnd])) {
+            urlEnd++;
+        }
+        return urlEnd;
+    }
+
+    /**
+     * Same as {@code \s} in a regular expression.
+     */
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+    }
+
+    private static int indexOf(CharSequence line, int from, String needle) {
+        char first = needle.charAt(0);
+        int max = line.length() - needle.length();
+        for (int i = from; i <= max; i++) {
+            if (line.charAt(i) == first && regionMatches(line, i, needle)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean regionMatches(CharSequence line, int start, String expected) {
+        if (start + expected.length() > line.length()) {
+            return false;
+        }
+        for (int i = 0; i < expected.length(); i++) {
+            if (line.charAt(start + i) != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean regionMatches(byte[] b, int start, int end, byte[] expected) {
+        if (start + expected.length > end) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (b[start + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
 
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
     }
 }
@@ -8,47 +8,118 @@ import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
 import org.jenkinsci.plugins.workflow.steps.StepExecution;
 import org.jenkinsci.plugins.workflow.steps.SynchronousNonBlockingStepExecution;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
 
 import javax.annotation.Nonnull;
-import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Stream;
 
 public class BuildScanPublisher extends Step {
+
+    static final int DEFAULT_MAX_SCANS = 1;
+    static final long DEFAULT_MAX_BYTES = 8 * 1024 * 1024;
+
+    private boolean fromEnd;
+    private int maxScans = DEFAULT_MAX_SCANS;
+    private long maxBytes = DEFAULT_MAX_BYTES;
+
     @DataBoundConstructor
     public BuildScanPublisher() {
     }
 
+    public boolean isFromEnd() {
+        return fromEnd;
+    }
+
+    @DataBoundSetter
+    public void setFromEnd(boolean fromEnd) {
+        this.fromEnd = fromEnd;
+    }
+
+    public int getMaxScans() {
+        return maxScans;
+    }
+
+    @DataBoundSetter
+    public void setMaxScans(int maxScans) {
+        this.maxScans = maxScans > 0 ? maxScans : DEFAULT_MAX_SCANS;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    @DataBoundSetter
+    public void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes > 0 ? maxBytes : DEFAULT_MAX_BYTES;
+    }
+
     @Override
     public StepExecution start(StepContext context) {
-        return new Execution(context);
+        return new Execution(context, fromEnd, maxScans, maxBytes);
     }
 
     static class Execution extends SynchronousNonBlockingStepExecution<List<String>> {
         private static final long serialVersionUID = 1L;
 
-        protected Execution(@Nonnull StepContext context) {
+        private final boolean fromEnd;
+        private final int maxScans;
+        private final long maxBytes;
+
+        Execution(@Nonnull StepContext context, boolean fromEnd, int maxScans, long maxBytes) {
             super(context);
+            this.fromEnd = fromEnd;
+            this.maxScans = maxScans;
+            this.maxBytes = maxBytes;
         }
 
         @Override
         protected List<String> run() throws Exception {
-            Run run = getContext().get(Run.class);
-            BuildScanLogScanner scanner = new BuildScanLogScanner(new DefaultBuildScanPublishedListener(run));
-            try (
-                    BufferedReader logReader = new BufferedReader(run.getLogReader());
-                    Stream<String> lines = logReader.lines()
-            ) {
-                lines.forEach(scanner::scanLine);
+            Run<?, ?> run = getContext().get(Run.class);
+            if (fromEnd) {
+                return scanFromEnd(run);
             }
+
+            BuildScanLogCheckpoint.forRun(run).scanNewOutput(run);
+
             BuildScanAction action = run.getAction(BuildScanAction.class);
             if (action != null) {
                 return action.getScanUrls();
             }
             return Collections.emptyList();
         }
+
+        /**
+         * Returns the last build scans published in the log, which are also added to the build scans of the run.
+         */
+        private List<String> scanFromEnd(Run<?, ?> run) throws Exception {
+            boolean logComplete = !run.isLogUpdated();
+            Charset charset = run.getCharset();
+
+            List<String> scanUrls;
+            File logFile = BuildScanLogReader.getLogFile(run);
+            if (logFile.isFile() && GradleConsoleLineClassifier.supports(charset)) {
+                scanUrls = BuildScanLogReader.scanFromEnd(logFile.toPath(), charset, maxScans, maxBytes, logComplete);
+            } else {
+                // The log can only be read forward, so all of it is scanned
+                Set<String> allScanUrls = new LinkedHashSet<>();
+                try (InputStream log = run.getLogInputStream()) {
+                    BuildScanLogReader.scan(log, charset, new BuildScanLogScanner(allScanUrls::add), logComplete);
+                }
+                scanUrls = new ArrayList<>(allScanUrls);
+                scanUrls = scanUrls.subList(Math.max(0, scanUrls.size() - maxScans), scanUrls.size());
+            }
+
+            BuildScanPublishedListener listener = new DefaultBuildScanPublishedListener(run);
+            scanUrls.forEach(listener::onBuildScanPublished);
+            return new ArrayList<>(scanUrls);
+        }
     }
 
     @Extension
@@ -0,0 +1,44 @@
+package hudson.plugins.gradle;
+
+import hudson.console.ConsoleNote;
+import jenkins.model.Jenkins;
+
+import java.io.IOException;
+import java.util.function.Supplier;
+
+/**
+ * The encoded bytes of a console note without any state, which are the same for every line it is written for.
+ * <p>
+ * The note is only encoded once and not for every line. Within the Jenkins JVM the encoded bytes are signed with a key
+ * of the Jenkins instance, so the note is encoded again if the instance changes.
+ */
+final class EncodedConsoleNote {
+
+    private final Supplier<? extends ConsoleNote> note;
+    private volatile Encoded encoded;
+
+    EncodedConsoleNote(Supplier<? extends ConsoleNote> note) {
+        this.note = note;
+    }
+
+    byte[] getBytes() throws IOException {
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        Encoded current = encoded;
+        if (current == null || current.jenkins != jenkins) {
+            current = new Encoded(jenkins, note.get().encodeToBytes().toByteArray());
+            encoded = current;
+        }
+        return current.bytes;
+    }
+
+    private static final class Encoded {
+
+        private final Jenkins jenkins;
+        private final byte[] bytes;
+
+        Encoded(Jenkins jenkins, byte[] bytes) {
+            this.jenkins = jenkins;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -310,7 +310,9 @@ public class Gradle extends Builder {
 
         try {
             DefaultBuildScanPublishedListener buildScanListener = new DefaultBuildScanPublishedListener(build);
-            GradleConsoleAnnotator gca = new GradleConsoleAnnotator(listener.getLogger(), build.getCharset(), true, buildScanListener);
+            GradleTaskOutcomeCounts taskOutcomes = new GradleTaskOutcomeCounts();
+            GradleConsoleAnnotator gca = new GradleConsoleAnnotator(
+                listener.getLogger(), build.getCharset(), true, buildScanListener, GradleTaskTimelineRecorder.forRun(build), taskOutcomes);
 
             int r;
             try {
@@ -318,6 +320,7 @@ public class Gradle extends Builder {
                         .pwd(rootLauncher).join();
             } finally {
                 gca.forceEol();
+                GradleTaskOutcomeAction.addTo(build, taskOutcomes);
             }
             boolean success = r == 0;
             // if the build is successful then set it as success otherwise as a failure.
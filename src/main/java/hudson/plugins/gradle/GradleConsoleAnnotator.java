@@ -2,6 +2,7 @@ package hudson.plugins.gradle;
 
 import hudson.console.LineTransformationOutputStream;
 
+import javax.annotation.CheckForNull;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
@@ -15,45 +16,156 @@ public class GradleConsoleAnnotator extends LineTransformationOutputStream {
 
     private static final int MAX_LINE_LENGTH = 500;
 
+    private static final EncodedConsoleNote TASK_NOTE = new EncodedConsoleNote(GradleTaskNote::new);
+    private static final EncodedConsoleNote OUTCOME_NOTE = new EncodedConsoleNote(GradleOutcomeNote::new);
+
     private final OutputStream out;
     private final Charset charset;
     private final boolean annotateGradleOutput;
+    private final boolean classifyBytes;
     private final BuildScanLogScanner buildScanLogScanner;
+    @CheckForNull
+    private final GradleTaskTimelineRecorder taskTimeline;
+    @CheckForNull
+    private final GradleTaskOutcomeCounts taskOutcomes;
+    private byte[] annotatedLine = new byte[1024];
 
     public GradleConsoleAnnotator(OutputStream out,
                                   Charset charset,
                                   boolean annotateGradleOutput,
                                   BuildScanPublishedListener buildScanListener) {
+        this(out, charset, annotateGradleOutput, buildScanListener, null, null);
+    }
+
+    GradleConsoleAnnotator(OutputStream out,
+                           Charset charset,
+                           boolean annotateGradleOutput,
+                           BuildScanPublishedListener buildScanListener,
+                           @CheckForNull GradleTaskTimelineRecorder taskTimeline,
+                           @CheckForNull GradleTaskOutcomeCounts taskOutcomes) {
         this.out = out;
         this.charset = charset;
         this.annotateGradleOutput = annotateGradleOutput;
-        this.buildScanLogScanner = new BuildScanLogScanner(buildScanListener);
+        this.classifyBytes = GradleConsoleLineClassifier.supports(charset);
+        this.buildScanLogScanner = AsyncBuildScanLogScanner.ENABLED
+            ? new AsyncBuildScanLogScanner(buildScanListener)
+            : new BuildScanLogScanner(buildScanListener);
+        this.taskTimeline = taskTimeline;
+        this.taskOutcomes = taskOutcomes;
     }
 
     @Override
     protected void eol(byte[] b, int len) throws IOException {
+        EncodedConsoleNote note = null;
         if (len < MAX_LINE_LENGTH) { // Don't parse too long lines
-            String line = charset.decode(ByteBuffer.wrap(b, 0, len)).toString();
+            if (classifyBytes) {
+                note = annotateAndScanBytes(b, len);
+            } else {
+                note = annotateAndScan(decode(b, len));
+            }
+        }
+
+        if (note != null) {
+            writeAnnotated(note.getBytes(), b, len);
+        } else {
+            out.write(b, 0, len);
+        }
+    }
+
+    /**
+     * Classifies and scans the line without decoding it, returns the note to put in front of the line.
+     */
+    private EncodedConsoleNote annotateAndScanBytes(byte[] b, int len) {
+        buildScanLogScanner.scanLine(b, 0, len, charset);
+
+        if (GradleConsoleLineClassifier.isTaskLine(b, len)) {
+            if (taskOutcomes != null) {
+                taskOutcomes.count(GradleConsoleLineClassifier.taskOutcome(b, len));
+            }
+            if (taskTimeline != null) {
+                recordTask(decode(b, len));
+            }
+            return annotateGradleOutput ? TASK_NOTE : null;
+        }
+
+        if (GradleConsoleLineClassifier.isOutcomeLine(b, len)) {
+            if (taskTimeline != null) {
+                taskTimeline.onOutcomeLine(System.currentTimeMillis());
+            }
+            return annotateGradleOutput ? OUTCOME_NOTE : null;
+        }
+        return null;
+    }
 
-            // trim off CR/LF from the end
-            line = trimEOL(line);
+    private EncodedConsoleNote annotateAndScan(String line) {
+        buildScanLogScanner.scanLine(line);
 
-            if (annotateGradleOutput) {
-                if (line.startsWith(":") || line.startsWith("> Task :"))
-                // put the annotation
-                {
-                    new GradleTaskNote().encodeTo(out);
-                }
+        if (line.startsWith(":") || line.startsWith("> Task :")) {
+            if (taskOutcomes != null || taskTimeline != null) {
+                recordTask(line);
+            }
+            return annotateGradleOutput ? TASK_NOTE : null;
+        }
 
-                if (line.startsWith("BUILD SUCCESSFUL") || line.startsWith("BUILD FAILED")) {
-                    new GradleOutcomeNote().encodeTo(out);
-                }
+        if (line.startsWith("BUILD SUCCESSFUL") || line.startsWith("BUILD FAILED")) {
+            if (taskTimeline != null) {
+                taskTimeline.onOutcomeLine(System.currentTimeMillis());
             }
+            return annotateGradleOutput ? OUTCOME_NOTE : null;
+        }
+        return null;
+    }
 
-            buildScanLogScanner.scanLine(line);
+    private void recordTask(String line) {
+        GradleTaskLine taskLine = GradleTaskLine.parse(line);
+        if (taskLine == null) {
+            return;
+        }
+        if (taskOutcomes != null) {
+            taskOutcomes.count(GradleTaskOutcome.fromStatus(taskLine.getStatus()));
         }
+        if (taskTimeline != null) {
+            taskTimeline.onTaskLine(taskLine, System.currentTimeMillis());
+        }
+    }
 
-        out.write(b, 0, len);
+    /**
+     * Writes the note and the line with a single write, annotated lines are shorter than {@link #MAX_LINE_LENGTH}.
+     */
+    private void writeAnnotated(byte[] note, byte[] b, int len) throws IOException {
+        int annotatedLength = note.length + len;
+        if (annotatedLine.length < annotatedLength) {
+            annotatedLine = new byte[annotatedLength];
+        }
+        System.arraycopy(note, 0, annotatedLine, 0, note.length);
+        System.arraycopy(b, 0, annotatedLine, note.length, len);
+        out.write(annotatedLine, 0, annotatedLength);
+    }
+
+    private String decode(byte[] b, int len) {
+        String line = charset.decode(ByteBuffer.wrap(b, 0, len)).toString();
+
+        // trim off CR/LF from the end
+        return trimEOL(line);
+    }
+
+    /**
+     * Waits until the build scan URLs in the lines written so far have been detected.
+     */
+    void flushBuildScans() {
+        buildScanLogScanner.flush();
+    }
+
+    /**
+     * Also waits until the build scan URLs in the written lines have been detected, and stores the recorded tasks.
+     */
+    @Override
+    public void forceEol() throws IOException {
+        super.forceEol();
+        buildScanLogScanner.flush();
+        if (taskTimeline != null) {
+            taskTimeline.flush(System.currentTimeMillis());
+        }
     }
 
     @Override
@@ -0,0 +1,111 @@
+package hudson.plugins.gradle;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Classifies console lines by looking at their raw bytes, so only the lines we are actually interested in
+ * have to be decoded into a {@link String}.
+ * <p>
+ * Only usable for charsets which encode ASCII characters as single bytes, see {@link #supports(Charset)}.
+ */
+final class GradleConsoleLineClassifier {
+
+    private static final byte[] TASK_PREFIX = ascii("> Task :");
+    private static final byte[] LEGACY_TASK_PREFIX = ascii(":");
+    private static final byte[] BUILD_SUCCESSFUL = ascii("BUILD SUCCESSFUL");
+    private static final byte[] BUILD_FAILED = ascii("BUILD FAILED");
+
+    private static final String ASCII_PROBE = "> Task :BUILD SUCCESSFUL FAILED Publishing build scan... https://\n";
+
+    private GradleConsoleLineClassifier() {
+    }
+
+    static boolean supports(Charset charset) {
+        return Arrays.equals(ASCII_PROBE.getBytes(charset), ASCII_PROBE.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    static boolean isTaskLine(byte[] b, int len) {
+        return startsWith(b, len, LEGACY_TASK_PREFIX) || startsWith(b, len, TASK_PREFIX);
+    }
+
+    /**
+     * Returns the outcome of the task of a task line, or {@code null} if the line is not a task line.
+     * Parses the same lines as {@link GradleTaskLine#parse(CharSequence)}.
+     */
+    static GradleTaskOutcome taskOutcome(byte[] b, int len) {
+        int taskStart;
+        if (startsWith(b, len, LEGACY_TASK_PREFIX)) {
+            taskStart = LEGACY_TASK_PREFIX.length;
+        } else if (startsWith(b, len, TASK_PREFIX)) {
+            taskStart = TASK_PREFIX.length;
+        } else {
+            return null;
+        }
+        if (taskStart == len || b[taskStart] == ':') {
+            return null;
+        }
+
+        int taskEnd = skip(b, taskStart + 1, len, false);
+        int statusStart = skip(b, taskEnd, len, true);
+        int statusEnd = skip(b, statusStart, len, false);
+        return GradleTaskOutcome.fromStatus(b, statusStart, statusEnd);
+    }
+
+    static boolean isOutcomeLine(byte[] b, int len) {
+        return startsWith(b, len, BUILD_SUCCESSFUL) || startsWith(b, len, BUILD_FAILED);
+    }
+
+    static boolean startsWith(byte[] b, int len, byte[] prefix) {
+        if (len < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (b[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the index of the first occurrence of {@code needle} in {@code b[from, to)}, or {@code -1}.
+     */
+    static int indexOf(byte[] b, int from, int to, byte[] needle) {
+        byte first = needle[0];
+        int max = to - needle.length;
+        for (int i = from; i <= max; i++) {
+            if (b[i] != first) {
+                continue;
+            }
+            int j = 1;
+            while (j < needle.length && b[i + j] == needle[j]) {
+                j++;
+            }
+            if (j == needle.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int skip(byte[] b, int from, int to, boolean whitespace) {
+        int i = from;
+        while (i < to && isWhitespace(b[i]) == whitespace) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Same as {@code \s} in a regular expression.
+     */
+    private static boolean isWhitespace(byte c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -24,6 +24,28 @@ public class GradleConsoleLogFilter extends ConsoleLogFilter implements Serializ
         }
 
         DefaultBuildScanPublishedListener buildScanListener = new DefaultBuildScanPublishedListener(build);
-        return new GradleConsoleAnnotator(logger, build.getCharset(), usesGradleBuilder, buildScanListener);
+        if (usesGradleBuilder) {
+            // The Gradle builder records the tasks of its own output
+            return new GradleConsoleAnnotator(logger, build.getCharset(), true, buildScanListener);
+        }
+        GradleTaskOutcomeCounts taskOutcomes = new GradleTaskOutcomeCounts();
+        return new GradleConsoleAnnotator(
+            logger,
+            build.getCharset(),
+            false,
+            buildScanListener,
+            GradleTaskTimelineRecorder.forRun(build),
+            taskOutcomes
+        ) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    // Only builds which ran Gradle tasks get the action
+                    GradleTaskOutcomeAction.addTo(build, taskOutcomes);
+                }
+            }
+        };
     }
 }
@@ -0,0 +1,121 @@
+package hudson.plugins.gradle;
+
+/**
+ * A parsed Gradle task line, either {@code :project:task STATUS} or {@code > Task :project:task STATUS}.
+ * <p>
+ * Lines are parsed in a single pass, matching the same lines as {@code ^:([^:]\S*)(\s*)(\S*)} and
+ * {@code ^> Task :([^:]\S*)(\s*)(\S*)} did.
+ */
+final class GradleTaskLine {
+
+    private static final String TASK_PREFIX = "> Task :";
+    private static final String LEGACY_TASK_PREFIX = ":";
+
+    private static final String[] PROGRESS_STATUSES = {"UP-TO-DATE", "SKIPPED", "FROM-CACHE", "NO-SOURCE"};
+
+    private final CharSequence line;
+    private final int taskStart;
+    private final int taskEnd;
+    private final int statusStart;
+    private final int statusEnd;
+
+    private GradleTaskLine(CharSequence line, int taskStart, int taskEnd, int statusStart, int statusEnd) {
+        this.line = line;
+        this.taskStart = taskStart;
+        this.taskEnd = taskEnd;
+        this.statusStart = statusStart;
+        this.statusEnd = statusEnd;
+    }
+
+    /**
+     * Returns the parsed task line, or {@code null} if the line is not a task line.
+     */
+    static GradleTaskLine parse(CharSequence line) {
+        int taskStart;
+        if (startsWith(line, LEGACY_TASK_PREFIX)) {
+            taskStart = LEGACY_TASK_PREFIX.length();
+        } else if (startsWith(line, TASK_PREFIX)) {
+            taskStart = TASK_PREFIX.length();
+        } else {
+            return null;
+        }
+        int length = line.length();
+        if (taskStart == length || line.charAt(taskStart) == ':') {
+            return null;
+        }
+
+        // The first character of the task path may be any character but a colon, including whitespace
+        int taskEnd = skip(line, taskStart + 1, length, false);
+        int statusStart = skip(line, taskEnd, length, true);
+        int statusEnd = skip(line, statusStart, length, false);
+        return new GradleTaskLine(line, taskStart, taskEnd, statusStart, statusEnd);
+    }
+
+    int getTaskEnd() {
+        return taskEnd;
+    }
+
+    int getStatusStart() {
+        return statusStart;
+    }
+
+    int getStatusEnd() {
+        return statusEnd;
+    }
+
+    String getTaskPath() {
+        return line.subSequence(taskStart, taskEnd).toString();
+    }
+
+    /**
+     * Returns the word following the task path, e.g. {@code UP-TO-DATE} or {@code FAILED}, or {@code null} if there is none.
+     */
+    String getStatus() {
+        return statusStart == statusEnd ? null : line.subSequence(statusStart, statusEnd).toString();
+    }
+
+    /**
+     * Returns the progress status of the task, one of UP-TO-DATE, SKIPPED, FROM-CACHE and NO-SOURCE,
+     * or {@code null} if the line doesn't have one.
+     */
+    String getProgressStatus() {
+        int statusLength = statusEnd - statusStart;
+        for (String status : PROGRESS_STATUSES) {
+            if (status.length() == statusLength && regionMatches(line, statusStart, status)) {
+                return status;
+            }
+        }
+        return null;
+    }
+
+    private static int skip(CharSequence line, int from, int to, boolean whitespace) {
+        int i = from;
+        while (i < to && isWhitespace(line.charAt(i)) == whitespace) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Same as {@code \s} in a regular expression.
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+    }
+
+    private static boolean startsWith(CharSequence line, String prefix) {
+        return regionMatches(line, 0, prefix);
+    }
+
+    private static boolean regionMatches(CharSequence line, int start, String expected) {
+        if (start + expected.length() > line.length()) {
+            return false;
+        }
+        for (int i = 0; i < expected.length(); i++) {
+            if (line.charAt(start + i) != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -8,23 +8,49 @@ import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class GradleTaskListenerDecorator extends TaskListenerDecorator {
 
-    private final List<String> buildScans = new ArrayList<>();
+    private final List<String> buildScans = new CopyOnWriteArrayList<>();
+    private final GradleTaskOutcomeCounts taskOutcomes = new GradleTaskOutcomeCounts();
+    // The annotators which may still be scanning lines for build scans in the background
+    private transient List<GradleConsoleAnnotator> asyncAnnotators;
 
     @Nonnull
     @Override
     public OutputStream decorate(@Nonnull OutputStream logger) throws IOException, InterruptedException {
-        return new GradleConsoleAnnotator(
+        GradleConsoleAnnotator annotator = new GradleConsoleAnnotator(
             logger,
             StandardCharsets.UTF_8,
             true,
-            buildScans::add
+            buildScans::add,
+            null,
+            taskOutcomes
         );
+        if (AsyncBuildScanLogScanner.ENABLED) {
+            asyncAnnotators().add(annotator);
+        }
+        return annotator;
     }
 
+    /**
+     * Returns the build scans found in the lines written so far, once all of them have been scanned.
+     */
     public List<String> getBuildScans() {
+        asyncAnnotators().forEach(GradleConsoleAnnotator::flushBuildScans);
         return new ArrayList<>(buildScans);
     }
+
+    public GradleTaskOutcomeCounts getTaskOutcomes() {
+        return taskOutcomes;
+    }
+
+    private synchronized List<GradleConsoleAnnotator> asyncAnnotators() {
+        if (asyncAnnotators == null) {
+            // Not restored when the decorator is deserialized
+            asyncAnnotators = new CopyOnWriteArrayList<>();
+        }
+        return asyncAnnotators;
+    }
 }
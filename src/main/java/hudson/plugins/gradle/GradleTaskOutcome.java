@@ -0,0 +1,69 @@
+package hudson.plugins.gradle;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The outcome of a Gradle task, as shown after the task path in its task line.
+ */
+public enum GradleTaskOutcome {
+    EXECUTED(null),
+    UP_TO_DATE("UP-TO-DATE"),
+    SKIPPED("SKIPPED"),
+    FROM_CACHE("FROM-CACHE"),
+    NO_SOURCE("NO-SOURCE"),
+    FAILED("FAILED");
+
+    private static final GradleTaskOutcome[] VALUES = values();
+
+    private final String status;
+    private final byte[] statusBytes;
+
+    GradleTaskOutcome(String status) {
+        this.status = status;
+        this.statusBytes = status == null ? null : status.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Returns {@code true} if the task did not have to do any work.
+     */
+    public boolean isAvoided() {
+        return this == UP_TO_DATE || this == SKIPPED || this == FROM_CACHE || this == NO_SOURCE;
+    }
+
+    /**
+     * Returns the outcome for the word following the task path, any unknown status means the task was executed.
+     */
+    static GradleTaskOutcome fromStatus(String status) {
+        if (status == null) {
+            return EXECUTED;
+        }
+        for (GradleTaskOutcome outcome : VALUES) {
+            if (status.equals(outcome.status)) {
+                return outcome;
+            }
+        }
+        return EXECUTED;
+    }
+
+    /**
+     * Same as {@link #fromStatus(String)} for the status in {@code b[start, end)}, without decoding it.
+     */
+    static GradleTaskOutcome fromStatus(byte[] b, int start, int end) {
+        for (GradleTaskOutcome outcome : VALUES) {
+            byte[] expected = outcome.statusBytes;
+            if (expected != null && expected.length == end - start && regionMatches(b, start, expected)) {
+                return outcome;
+            }
+        }
+        return EXECUTED;
+    }
+
+    private static boolean regionMatches(byte[] b, int start, byte[] expected) {
+        for (int i = 0; i < expected.length; i++) {
+            if (b[start + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
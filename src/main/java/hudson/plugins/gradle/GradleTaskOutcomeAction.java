@@ -0,0 +1,45 @@
+package hudson.plugins.gradle;
+
+import hudson.model.InvisibleAction;
+import hudson.model.Run;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+import javax.annotation.CheckForNull;
+
+/**
+ * Exposes how many of the Gradle tasks of a run were executed and how many were avoided, e.g. by the build cache,
+ * as counted from the console log while it was written.
+ */
+@ExportedBean
+public class GradleTaskOutcomeAction extends InvisibleAction {
+
+    private static final Object LOCK = new Object();
+
+    private final GradleTaskOutcomeCounts taskOutcomes = new GradleTaskOutcomeCounts();
+
+    static GradleTaskOutcomeAction forRun(Run<?, ?> run) {
+        synchronized (LOCK) {
+            GradleTaskOutcomeAction action = run.getAction(GradleTaskOutcomeAction.class);
+            if (action == null) {
+                action = new GradleTaskOutcomeAction();
+                run.addAction(action);
+            }
+            return action;
+        }
+    }
+
+    /**
+     * Adds the counted task outcomes to the run, if there are any.
+     */
+    static void addTo(Run<?, ?> run, @CheckForNull GradleTaskOutcomeCounts counts) {
+        if (counts != null && !counts.isEmpty()) {
+            forRun(run).getTaskOutcomes().add(counts);
+        }
+    }
+
+    @Exported(inline = true)
+    public GradleTaskOutcomeCounts getTaskOutcomes() {
+        return taskOutcomes;
+    }
+}
@@ -0,0 +1,111 @@
+package hudson.plugins.gradle;
+
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+import javax.annotation.CheckForNull;
+import java.io.Serializable;
+
+/**
+ * Counts the outcomes of the Gradle tasks written to a console log.
+ */
+@ExportedBean(defaultVisibility = 2)
+public class GradleTaskOutcomeCounts implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private int executed;
+    private int failed;
+    private int upToDate;
+    private int fromCache;
+    private int noSource;
+    private int skipped;
+
+    synchronized void count(@CheckForNull GradleTaskOutcome outcome) {
+        if (outcome == null) {
+            return;
+        }
+        switch (outcome) {
+            case EXECUTED:
+                executed++;
+                break;
+            case FAILED:
+                failed++;
+                break;
+            case UP_TO_DATE:
+                upToDate++;
+                break;
+            case FROM_CACHE:
+                fromCache++;
+                break;
+            case NO_SOURCE:
+                noSource++;
+                break;
+            case SKIPPED:
+                skipped++;
+                break;
+        }
+    }
+
+    synchronized void add(GradleTaskOutcomeCounts other) {
+        synchronized (other) {
+            executed += other.executed;
+            failed += other.failed;
+            upToDate += other.upToDate;
+            fromCache += other.fromCache;
+            noSource += other.noSource;
+            skipped += other.skipped;
+        }
+    }
+
+    synchronized boolean isEmpty() {
+        return getTotal() == 0;
+    }
+
+    /**
+     * Tasks which did some work, including failed tasks.
+     */
+    @Exported
+    public synchronized int getExecuted() {
+        return executed + failed;
+    }
+
+    @Exported
+    public synchronized int getFailed() {
+        return failed;
+    }
+
+    /**
+     * Tasks which did not have to do any work, because they were up-to-date, loaded from the build cache,
+     * had no sources or were skipped.
+     */
+    @Exported
+    public synchronized int getAvoided() {
+        return upToDate + fromCache + noSource + skipped;
+    }
+
+    @Exported
+    public synchronized int getUpToDate() {
+        return upToDate;
+    }
+
+    @Exported
+    public synchronized int getFromCache() {
+        return fromCache;
+    }
+
+    @Exported
+    public synchronized int getNoSource() {
+        return noSource;
+    }
+
+    @Exported
+    public synchronized int getSkipped() {
+        return skipped;
+    }
+
+    @Exported
+    public synchronized int getTotal() {
+        return getExecuted() + getAvoided();
+    }
+}
@@ -0,0 +1,93 @@
+package hudson.plugins.gradle;
+
+import hudson.model.InvisibleAction;
+import hudson.model.Run;
+import jenkins.model.RunAction2;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Exposes the Gradle tasks recorded from the console log of a run, see {@link GradleTaskTimelineRecorder}.
+ * <p>
+ * The tasks are stored in a binary file next to the build log and only read when requested.
+ */
+@ExportedBean
+public class GradleTaskTimelineAction extends InvisibleAction implements RunAction2 {
+
+    private static final Logger LOGGER = Logger.getLogger(GradleTaskTimelineAction.class.getName());
+
+    static final String TIMELINE_FILE_NAME = "gradle-task-timeline.bin";
+    static final int FORMAT_VERSION = 1;
+
+    private static final Object LOCK = new Object();
+
+    private transient Run<?, ?> run;
+
+    static GradleTaskTimelineAction forRun(Run<?, ?> run) {
+        synchronized (LOCK) {
+            GradleTaskTimelineAction action = run.getAction(GradleTaskTimelineAction.class);
+            if (action == null) {
+                action = new GradleTaskTimelineAction();
+                run.addAction(action);
+            }
+            return action;
+        }
+    }
+
+    @Override
+    public void onAttached(Run<?, ?> r) {
+        this.run = r;
+    }
+
+    @Override
+    public void onLoad(Run<?, ?> r) {
+        this.run = r;
+    }
+
+    File getTimelineFile() {
+        return new File(run.getRootDir(), TIMELINE_FILE_NAME);
+    }
+
+    @Exported
+    public List<GradleTaskTimelineEntry> getTasks() {
+        try {
+            return read(getTimelineFile());
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to read the Gradle task timeline of " + run, e);
+            return Collections.emptyList();
+        }
+    }
+
+    static List<GradleTaskTimelineEntry> read(File timelineFile) throws IOException {
+        if (!timelineFile.isFile()) {
+            return Collections.emptyList();
+        }
+        List<GradleTaskTimelineEntry> tasks = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(timelineFile.toPath())))) {
+            int version = in.readInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported format version " + version);
+            }
+            while (true) {
+                try {
+                    tasks.add(GradleTaskTimelineEntry.readFrom(in));
+                } catch (EOFException e) {
+                    // A task written partially by a build which was interrupted is dropped
+                    return tasks;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package hudson.plugins.gradle;
+
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A task of the {@link GradleTaskTimelineAction}, with the time its task line was written and how long it took
+ * until the next task or build outcome line was written.
+ */
+@ExportedBean(defaultVisibility = 2)
+public final class GradleTaskTimelineEntry {
+
+    private final String path;
+    private final long startTime;
+    private final long duration;
+    private final GradleTaskOutcome outcome;
+
+    GradleTaskTimelineEntry(String path, long startTime, long duration, GradleTaskOutcome outcome) {
+        this.path = path;
+        this.startTime = startTime;
+        this.duration = duration;
+        this.outcome = outcome;
+    }
+
+    @Exported
+    public String getPath() {
+        return path;
+    }
+
+    @Exported
+    public long getStartTime() {
+        return startTime;
+    }
+
+    @Exported
+    public long getDuration() {
+        return duration;
+    }
+
+    @Exported
+    public GradleTaskOutcome getOutcome() {
+        return outcome;
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeUTF(path);
+        out.writeLong(startTime);
+        out.writeInt((int) Math.min(duration, Integer.MAX_VALUE));
+        out.writeByte(outcome.ordinal());
+    }
+
+    static GradleTaskTimelineEntry readFrom(DataInput in) throws IOException {
+        String path = in.readUTF();
+        long startTime = in.readLong();
+        long duration = in.readInt();
+        int outcome = in.readUnsignedByte();
+        GradleTaskOutcome[] outcomes = GradleTaskOutcome.values();
+        if (outcome >= outcomes.length) {
+            throw new IOException("Unknown task outcome " + outcome);
+        }
+        return new GradleTaskTimelineEntry(path, startTime, duration, outcomes[outcome]);
+    }
+}
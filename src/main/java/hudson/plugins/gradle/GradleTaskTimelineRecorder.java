@@ -0,0 +1,97 @@
+package hudson.plugins.gradle;
+
+import hudson.model.Run;
+
+import javax.annotation.CheckForNull;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Records the Gradle tasks of a run from the task lines written to its console log.
+ * <p>
+ * A task starts when its task line is written and ends when the next task line or the build outcome is written.
+ * The tasks are appended to the timeline file of the {@link GradleTaskTimelineAction} of the run on {@link #flush(long)},
+ * the action is only added to the run once there are tasks to append.
+ */
+final class GradleTaskTimelineRecorder {
+
+    /** Non-private for use in tests. */
+    static boolean ENABLED = Boolean.getBoolean(GradleTaskTimelineRecorder.class.getName() + ".enabled");
+
+    private final Supplier<File> timelineFile;
+    private final List<GradleTaskTimelineEntry> tasks = new ArrayList<>();
+
+    private GradleTaskLine currentTask;
+    private long currentTaskStartTime;
+
+    GradleTaskTimelineRecorder(File timelineFile) {
+        this(() -> timelineFile);
+    }
+
+    private GradleTaskTimelineRecorder(Supplier<File> timelineFile) {
+        this.timelineFile = timelineFile;
+    }
+
+    /**
+     * Returns a recorder for the run, or {@code null} if recording the task timeline is disabled.
+     */
+    @CheckForNull
+    static GradleTaskTimelineRecorder forRun(Run<?, ?> run) {
+        if (!ENABLED) {
+            return null;
+        }
+        return new GradleTaskTimelineRecorder(() -> GradleTaskTimelineAction.forRun(run).getTimelineFile());
+    }
+
+    void onTaskLine(GradleTaskLine taskLine, long time) {
+        finishCurrentTask(time);
+        currentTask = taskLine;
+        currentTaskStartTime = time;
+    }
+
+    void onOutcomeLine(long time) {
+        finishCurrentTask(time);
+    }
+
+    /**
+     * Finishes the current task and appends the recorded tasks to the timeline file.
+     */
+    void flush(long time) throws IOException {
+        finishCurrentTask(time);
+        if (tasks.isEmpty()) {
+            return;
+        }
+
+        File file = timelineFile.get();
+        synchronized (GradleTaskTimelineRecorder.class) {
+            boolean newFile = !file.exists() || file.length() == 0;
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)))) {
+                if (newFile) {
+                    out.writeInt(GradleTaskTimelineAction.FORMAT_VERSION);
+                }
+                for (GradleTaskTimelineEntry task : tasks) {
+                    task.writeTo(out);
+                }
+            }
+        }
+        tasks.clear();
+    }
+
+    private void finishCurrentTask(long time) {
+        if (currentTask == null) {
+            return;
+        }
+        tasks.add(new GradleTaskTimelineEntry(
+            currentTask.getTaskPath(),
+            currentTaskStartTime,
+            time - currentTaskStartTime,
+            GradleTaskOutcome.fromStatus(currentTask.getStatus())));
+        currentTask = null;
+    }
+}
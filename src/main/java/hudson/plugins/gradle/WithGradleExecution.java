@@ -53,11 +53,13 @@ public class WithGradleExecution extends StepExecution {
                     logger.println("WARNING: No decorator found, not looking for build scans");
                     return Collections.emptyList();
                 }
+                Run run = context.get(Run.class);
+                GradleTaskOutcomeAction.addTo(run, decorator.getTaskOutcomes());
+
                 List<String> buildScans = decorator.getBuildScans();
                 if (buildScans.isEmpty()) {
                     return Collections.emptyList();
                 }
-                Run run = context.get(Run.class);
                 FlowNode flowNode = context.get(FlowNode.class);
                 flowNode.getParents().stream().findFirst().ifPresent(parent -> {
                     BuildScanFlowAction nodeBuildScanAction = new BuildScanFlowAction(parent);
@@ -0,0 +1,82 @@
+package hudson.plugins.gradle.injection;
+
+import hudson.Extension;
+import hudson.model.Computer;
+import hudson.model.Node;
+import hudson.model.Queue;
+import hudson.model.queue.CauseOfBlockage;
+import hudson.model.queue.QueueTaskDispatcher;
+import jenkins.model.Jenkins;
+
+import javax.annotation.CheckForNull;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+
+/**
+ * Injects into agents in the background when they connect, so bringing an agent online doesn't wait for the files
+ * to be copied. This suits short-lived cloud agents, which would otherwise spend part of their short life on it.
+ * <p>
+ * No task is started on an agent until the injection into the agent completed, so Freestyle, Maven and Pipeline
+ * builds alike find the injected files and environment variables.
+ */
+final class BackgroundInjection {
+
+    // Non-private for use in tests
+    static boolean ENABLED = Boolean.getBoolean(BackgroundInjection.class.getName() + ".enabled");
+
+    private static final Map<Computer, Future<?>> PENDING = new ConcurrentHashMap<>();
+
+    private BackgroundInjection() {
+    }
+
+    static Future<?> submit(Computer computer, Runnable injection) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        PENDING.put(computer, done);
+        Computer.threadPoolForRemoting.submit(() -> {
+            try {
+                injection.run();
+            } finally {
+                PENDING.remove(computer, done);
+                done.complete(null);
+                // Let the queue hand the blocked tasks to the agent
+                Jenkins.get().getQueue().scheduleMaintenance();
+            }
+        });
+        return done;
+    }
+
+    static boolean isPending(@CheckForNull Computer computer) {
+        return computer != null && PENDING.containsKey(computer);
+    }
+
+    /**
+     * Keeps the tasks off an agent while the injection into it is pending.
+     */
+    @Extension
+    public static final class Dispatcher extends QueueTaskDispatcher {
+
+        @Override
+        public CauseOfBlockage canTake(Node node, Queue.BuildableItem item) {
+            if (ENABLED && isPending(node.toComputer())) {
+                return new WaitingForInjection(node);
+            }
+            return null;
+        }
+    }
+
+    static final class WaitingForInjection extends CauseOfBlockage {
+
+        private final String nodeName;
+
+        WaitingForInjection(Node node) {
+            this.nodeName = node.getDisplayName();
+        }
+
+        @Override
+        public String getShortDescription() {
+            return "Waiting for the Gradle Enterprise auto-injection into " + nodeName;
+        }
+    }
+}
@@ -5,7 +5,6 @@ import hudson.Extension;
 import hudson.model.EnvironmentContributor;
 import hudson.model.Run;
 import hudson.model.TaskListener;
-import hudson.util.Secret;
 
 import javax.annotation.Nonnull;
 
@@ -14,11 +13,22 @@ public class BuildScanEnvironmentContributor extends EnvironmentContributor {
 
     private static final String GRADLE_ENTERPRISE_ACCESS_KEY = "GRADLE_ENTERPRISE_ACCESS_KEY";
 
+    /**
+     * Whether the variables which don't depend on the node are set for each build, instead of on each node, so
+     * changing them doesn't update all nodes. Non-private for use in tests.
+     */
+    static boolean PER_BUILD = Boolean.getBoolean(BuildScanEnvironmentContributor.class.getName() + ".perBuild");
+
     @Override
     public void buildEnvironmentFor(@Nonnull Run run, @Nonnull EnvVars envs, @Nonnull TaskListener listener) {
-        Secret accessKey = InjectionConfig.get().getAccessKey();
+        InjectionConfigSnapshot config = InjectionConfig.get().getSnapshot();
+        if (PER_BUILD) {
+            envs.putAll(config.getBuildEnvironment());
+        }
+
+        String accessKey = config.getAccessKey();
         if (accessKey != null) {
-            envs.put(GRADLE_ENTERPRISE_ACCESS_KEY, accessKey.getPlainText());
+            envs.put(GRADLE_ENTERPRISE_ACCESS_KEY, accessKey);
         }
     }
 }
@@ -3,9 +3,31 @@ package hudson.plugins.gradle.injection;
 import hudson.EnvVars;
 import hudson.model.Node;
 
+import java.util.Map;
+import java.util.Set;
+
 public interface BuildScanInjection {
 
-    boolean isEnabled(Node node);
+    boolean isEnabled(InjectionConfigSnapshot config, Node node);
+
+    /**
+     * Returns the paths of the files which the injection copies to the node, mapped to their expected digests.
+     * The files of all injections are checked with a single call to the node, see {@link CopyUtil#changedFiles}.
+     */
+    Map<String, String> injectedFiles(InjectionConfigSnapshot config, Node node, EnvVars envGlobal, EnvVars envComputer);
 
-    void inject(Node node, EnvVars envGlobal, EnvVars envComputer);
+    /**
+     * Injects into the node, or removes what has been injected if the injection is disabled for the node.
+     * Only the injected files which are in {@code changedFiles} are copied. Returns {@code false} if that failed.
+     * <p>
+     * The environment variables for the node are put into {@code environmentVariables}, with a {@code null} value
+     * for those to remove. The variables of all injections are set with a single update of the node, see
+     * {@link EnvUtil#setEnvVars}.
+     */
+    boolean inject(InjectionConfigSnapshot config,
+                   Node node,
+                   EnvVars envGlobal,
+                   EnvVars envComputer,
+                   Set<String> changedFiles,
+                   Map<String, String> environmentVariables);
 }
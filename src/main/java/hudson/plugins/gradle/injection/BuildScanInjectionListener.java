@@ -5,30 +5,78 @@ import hudson.Extension;
 import hudson.model.Computer;
 import hudson.model.Node;
 import hudson.model.TaskListener;
+import hudson.plugins.gradle.injection.InjectionRecorder.Phase;
+import hudson.plugins.gradle.injection.InjectionStatus.Outcome;
 import hudson.slaves.ComputerListener;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
 import jenkins.model.Jenkins;
+import jenkins.util.AtmostOneTaskExecutor;
+import jenkins.util.Timer;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 @Extension
 public class BuildScanInjectionListener extends ComputerListener {
 
     private static final Logger LOGGER = Logger.getLogger(BuildScanInjectionListener.class.getName());
 
+    // Number of agents injected in parallel when the configuration changes
+    private static final int PARALLELISM =
+        Math.max(1, Integer.getInteger(BuildScanInjectionListener.class.getName() + ".parallelism", 16));
+    // Time after which the injection on a single agent is interrupted
+    private static final long AGENT_TIMEOUT_SECONDS =
+        Long.getLong(BuildScanInjectionListener.class.getName() + ".agentTimeoutSeconds", 60);
+    private static final int PROGRESS_INTERVAL = 100;
+
     private final List<BuildScanInjection> injections =
         Arrays.asList(new GradleBuildScanInjection(), new MavenBuildScanInjection());
 
+    private final InjectionFingerprints fingerprints = new InjectionFingerprints();
+
+    private final Map<String, InjectionStatus> statuses = new ConcurrentHashMap<>();
+
+    // Injections into the same agent are made one at a time
+    private final Map<String, Object> agentLocks = new ConcurrentHashMap<>();
+
+    private final AtmostOneTaskExecutor<Void> allAgents = new AtmostOneTaskExecutor<>(() -> {
+        injectAll();
+        return null;
+    });
+
     @Override
     public void onOnline(Computer computer, TaskListener listener) {
         try {
-            if (isFeatureEnabled()) {
+            InjectionConfigSnapshot config = InjectionConfig.get().getSnapshot();
+            if (config.isEnabled()) {
                 EnvVars envGlobal = computer.buildEnvironment(listener);
 
-                inject(computer, envGlobal);
+                // A reconnected agent may have lost what was injected before, so always inject
+                if (BackgroundInjection.ENABLED) {
+                    BackgroundInjection.submit(computer, () -> injectWithTimeout(config, computer, envGlobal, false));
+                } else {
+                    inject(config, computer, envGlobal, false);
+                }
             }
         } catch (Throwable t) {
             /*
@@ -44,31 +92,269 @@ public class BuildScanInjectionListener extends ComputerListener {
         }
     }
 
+    /**
+     * Injects into all online agents in the background and returns at once. Jenkins calls this while holding the
+     * queue lock, which saving a node waits for, so waiting for the agents here would deadlock.
+     */
     @Override
     public void onConfigurationChange() {
-        if (isFeatureEnabled()) {
+        injectIntoAllAgents();
+    }
+
+    /**
+     * Schedules an injection into all online agents. Requests made while a pass is waiting to start are served
+     * by that pass. Returns a future which completes once a pass started after this call completed.
+     * Non-private for use in tests.
+     */
+    Future<Void> injectIntoAllAgents() {
+        return allAgents.submit();
+    }
+
+    /**
+     * Injects into all online agents, {@link #PARALLELISM} at a time, so a slow agent doesn't hold up the others.
+     * Agents for which nothing changed since their last successful injection are skipped.
+     * Returns once all agents have been injected or timed out.
+     */
+    private void injectAll() {
+        InjectionConfigSnapshot config = InjectionConfig.get().getSnapshot();
+        if (config.isEnabled()) {
             EnvVars envGlobal = EnvUtil.globalEnvironment();
+            List<Node> nodes = new ArrayList<>(Jenkins.get().getNodes());
+            // The built-in node is not part of the nodes
+            nodes.add(Jenkins.get());
+            fingerprints.retainAll(nodes);
+            retainStatuses(nodes);
 
+            List<Computer> computers = new ArrayList<>();
             for (Computer computer : Jenkins.get().getComputers()) {
                 if (computer.isOnline()) {
-                    inject(computer, envGlobal);
+                    computers.add(computer);
                 }
             }
+            if (computers.isEmpty()) {
+                return;
+            }
+
+            ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(PARALLELISM, computers.size()),
+                new NamingThreadFactory(new DaemonThreadFactory(), BuildScanInjectionListener.class.getSimpleName()));
+            try {
+                injectAll(executor, config, computers, envGlobal);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                LOGGER.log(Level.WARNING, "Interrupted while injecting build scans into agents", e);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    void onDeleted(Node node) {
+        fingerprints.invalidate(node);
+        statuses.remove(node.getNodeName());
+        agentLocks.remove(node.getNodeName());
+    }
+
+    /**
+     * Returns the last injection into each agent, ordered by agent name.
+     */
+    List<InjectionStatus> getStatuses() {
+        List<InjectionStatus> sorted = new ArrayList<>(statuses.values());
+        sorted.sort(Comparator.comparing(InjectionStatus::getAgent));
+        return sorted;
+    }
+
+    private void retainStatuses(List<Node> nodes) {
+        Set<String> nodeNames = nodes.stream().map(Node::getNodeName).collect(Collectors.toSet());
+        statuses.keySet().retainAll(nodeNames);
+    }
+
+    private void injectAll(ExecutorService executor,
+                           InjectionConfigSnapshot config,
+                           List<Computer> computers,
+                           EnvVars envGlobal) throws InterruptedException {
+        long start = System.nanoTime();
+        CompletionService<InjectionResult> completionService = new ExecutorCompletionService<>(executor);
+        for (Computer computer : computers) {
+            completionService.submit(() -> injectWithTimeout(config, computer, envGlobal, true));
+        }
+
+        int succeeded = 0;
+        List<String> failed = new ArrayList<>();
+        List<String> timedOut = new ArrayList<>();
+        for (int done = 1; done <= computers.size(); done++) {
+            InjectionResult result = result(completionService.take());
+            switch (result.outcome) {
+                case SUCCEEDED:
+                    succeeded++;
+                    break;
+                case FAILED:
+                    failed.add(result.computerName);
+                    break;
+                case TIMED_OUT:
+                    timedOut.add(result.computerName);
+                    break;
+            }
+            if (done % PROGRESS_INTERVAL == 0 && done < computers.size()) {
+                LOGGER.info(String.format("Injected build scans into %d of %d agents", done, computers.size()));
+            }
+        }
+
+        long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        Level level = failed.isEmpty() && timedOut.isEmpty() ? Level.INFO : Level.WARNING;
+        LOGGER.log(level, String.format(
+            "Injected build scans into %d agents in %d ms: %d succeeded, %d failed %s, %d timed out %s",
+            computers.size(), durationMillis, succeeded, failed.size(), failed, timedOut.size(), timedOut));
+    }
+
+    private static InjectionResult result(Future<InjectionResult> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            // injectWithTimeout handles all exceptions
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private InjectionResult injectWithTimeout(InjectionConfigSnapshot config,
+                                              Computer computer,
+                                              EnvVars envGlobal,
+                                              boolean skipUpToDate) {
+        String computerName = computer.getName();
+        InterruptingTimeout timeout = new InterruptingTimeout(Thread.currentThread());
+        timeout.schedule(AGENT_TIMEOUT_SECONDS);
+
+        boolean injected = false;
+        try {
+            injected = inject(config, computer, envGlobal, skipUpToDate);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Error while build scans injection on " + computerName, e);
+        } finally {
+            timeout.cancel();
         }
+
+        if (timeout.hasExpired()) {
+            statuses.computeIfPresent(computerName, (name, status) -> status.withOutcome(Outcome.TIMED_OUT));
+            LOGGER.warning("Build scans injection on " + computerName + " timed out after " + AGENT_TIMEOUT_SECONDS + " seconds");
+            return new InjectionResult(computerName, Outcome.TIMED_OUT);
+        }
+        return new InjectionResult(computerName, injected ? Outcome.SUCCEEDED : Outcome.FAILED);
     }
 
-    private void inject(Computer computer, EnvVars envGlobal) {
+    /**
+     * Injects into the agent once any other injection into it completed, unless {@code skipUpToDate} is set and
+     * nothing changed since the last successful injection. Remembers the fingerprint of the agent once all
+     * injections succeeded, and the status of the injection in any case.
+     */
+    private boolean inject(InjectionConfigSnapshot config, Computer computer, EnvVars envGlobal, boolean skipUpToDate) {
+        synchronized (agentLocks.computeIfAbsent(computer.getName(), name -> new Object())) {
+            return injectLocked(config, computer, envGlobal, skipUpToDate);
+        }
+    }
+
+    private boolean injectLocked(InjectionConfigSnapshot config,
+                                 Computer computer,
+                                 EnvVars envGlobal,
+                                 boolean skipUpToDate) {
+        Node node = computer.getNode();
+        if (node != null && skipUpToDate
+            && fingerprints.isInjected(node, InjectionFingerprints.fingerprint(config.getFingerprint(), node, envGlobal))) {
+            return true;
+        }
+
+        InjectionRecorder recorder = InjectionRecorder.start(computer.getDisplayName());
+        boolean injected = false;
         try {
-            Node node = computer.getNode();
+            if (node != null) {
+                // Forget the previous injection until this one succeeded
+                fingerprints.invalidate(node);
+            }
             EnvVars envComputer = computer.getEnvironment();
 
-            injections.forEach(injection -> injection.inject(node, envGlobal, envComputer));
+            // The files of all injections are checked with a single call to the agent
+            Map<String, String> injectedFiles = new HashMap<>();
+            for (BuildScanInjection injection : injections) {
+                injectedFiles.putAll(injection.injectedFiles(config, node, envGlobal, envComputer));
+            }
+            Set<String> changedFiles = injectedFiles.isEmpty()
+                ? Collections.emptySet()
+                : CopyUtil.changedFiles(node.getChannel(), injectedFiles);
+
+            injected = true;
+            // The variables of all injections are set with a single update of the node
+            Map<String, String> environmentVariables = new HashMap<>();
+            for (BuildScanInjection injection : injections) {
+                injected &= injection.inject(config, node, envGlobal, envComputer, changedFiles, environmentVariables);
+            }
+            if (node != null && !environmentVariables.isEmpty()) {
+                InjectionRecorder.record(Phase.ENVIRONMENT_VARIABLES, () -> EnvUtil.setEnvVars(node, environmentVariables));
+            }
+
+            if (node != null && injected) {
+                // The injection sets environment variables on the node, so fingerprint it afterwards
+                fingerprints.setInjected(node, InjectionFingerprints.fingerprint(config.getFingerprint(), node, envGlobal));
+            }
+            return injected;
         } catch (IOException | InterruptedException e) {
+            InjectionRecorder.failed(e);
             LOGGER.log(Level.WARNING, "Error while build scans injection on " + computer.getName(), e);
+            return false;
+        } catch (RuntimeException e) {
+            InjectionRecorder.failed(e);
+            throw e;
+        } finally {
+            statuses.put(computer.getName(), recorder.stop(injected ? Outcome.SUCCEEDED : Outcome.FAILED));
+        }
+    }
+
+    private static final class InjectionResult {
+
+        private final String computerName;
+        private final Outcome outcome;
+
+        InjectionResult(String computerName, Outcome outcome) {
+            this.computerName = computerName;
+            this.outcome = outcome;
         }
     }
 
-    private static boolean isFeatureEnabled() {
-        return InjectionConfig.get().isEnabled();
+    /**
+     * Interrupts the injecting thread once the timeout expires, which aborts any pending remote call to the agent.
+     */
+    private static final class InterruptingTimeout implements Runnable {
+
+        private final Thread thread;
+        private ScheduledFuture<?> future;
+        private boolean cancelled;
+        private boolean expired;
+
+        InterruptingTimeout(Thread thread) {
+            this.thread = thread;
+        }
+
+        void schedule(long seconds) {
+            future = Timer.get().schedule(this, seconds, TimeUnit.SECONDS);
+        }
+
+        @Override
+        public synchronized void run() {
+            if (!cancelled) {
+                expired = true;
+                thread.interrupt();
+            }
+        }
+
+        synchronized void cancel() {
+            cancelled = true;
+            future.cancel(false);
+            if (expired) {
+                // Don't leave the interrupt to the next agent injected by the thread
+                Thread.interrupted();
+            }
+        }
+
+        synchronized boolean hasExpired() {
+            return expired;
+        }
     }
 }
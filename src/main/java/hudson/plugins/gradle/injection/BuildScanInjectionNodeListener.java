@@ -0,0 +1,20 @@
+package hudson.plugins.gradle.injection;
+
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.model.Node;
+import jenkins.model.NodeListener;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Forgets what has been injected into deleted nodes.
+ */
+@Extension
+public class BuildScanInjectionNodeListener extends NodeListener {
+
+    @Override
+    protected void onDeleted(@Nonnull Node node) {
+        ExtensionList.lookupSingleton(BuildScanInjectionListener.class).onDeleted(node);
+    }
+}
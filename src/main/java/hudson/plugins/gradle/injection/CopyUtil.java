@@ -1,24 +1,117 @@
 package hudson.plugins.gradle.injection;
 
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import hudson.FilePath;
 import hudson.Util;
+import hudson.remoting.RemoteInputStream;
+import hudson.remoting.VirtualChannel;
+import jenkins.security.MasterToSlaveCallable;
+import org.apache.commons.io.IOUtils;
 
+import javax.annotation.CheckForNull;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.ref.SoftReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 public final class CopyUtil {
 
+    private static final Logger LOGGER = Logger.getLogger(CopyUtil.class.getName());
+
+    // Number of resources transferred to agents at the same time
+    static final int MAX_CONCURRENT_TRANSFERS =
+        Math.max(1, Integer.getInteger(CopyUtil.class.getName() + ".maxConcurrentTransfers", 8));
+
+    /** Non-private for use in tests. */
+    static final Semaphore TRANSFERS = new Semaphore(MAX_CONCURRENT_TRANSFERS, true);
+    // Softly referenced so the compressed extensions are reused across agents, but don't stay in the heap for good
+    private static final Map<String, SoftReference<byte[]>> COMPRESSED_RESOURCES = new ConcurrentHashMap<>();
+
+    private static final String RESOURCE_DIGESTS_NAME = "/hudson/plugins/gradle/injection/resource-digests.properties";
+    private static final Supplier<Properties> RESOURCE_DIGESTS = Suppliers.memoize(CopyUtil::loadResourceDigests);
+
     private CopyUtil() {
     }
 
+    /**
+     * Copies the resource to the node. Resources are transferred to remote nodes compressed, and at most
+     * {@link #MAX_CONCURRENT_TRANSFERS} at a time across all nodes.
+     */
     public static void copyResourceToNode(FilePath nodePath, String resourceName) throws IOException, InterruptedException {
-        doWithResource(resourceName, is -> {
-            nodePath.copyFrom(is);
-            return null;
-        });
+        if (!nodePath.isRemote()) {
+            doWithResource(resourceName, is -> {
+                nodePath.copyFrom(is);
+                return null;
+            });
+            return;
+        }
+
+        byte[] compressed = compressedResource(resourceName);
+        VirtualChannel channel = nodePath.getChannel();
+
+        long waitStart = System.nanoTime();
+        TRANSFERS.acquire();
+        try {
+            long transferStart = System.nanoTime();
+            channel.call(new WriteCompressed(nodePath.getRemote(), new RemoteInputStream(
+                new ByteArrayInputStream(compressed), RemoteInputStream.Flag.GREEDY)));
+            InjectionRecorder.transferred(compressed.length);
+
+            LOGGER.info(String.format("Transferred %s (%d bytes compressed) to %s on %s in %d ms, waited %d ms to start",
+                resourceName, compressed.length, nodePath.getRemote(), channel,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - transferStart),
+                TimeUnit.NANOSECONDS.toMillis(transferStart - waitStart)));
+        } finally {
+            TRANSFERS.release();
+        }
+    }
+
+    private static byte[] compressedResource(String resourceName) throws IOException, InterruptedException {
+        SoftReference<byte[]> cached = COMPRESSED_RESOURCES.get(resourceName);
+        byte[] compressed = cached != null ? cached.get() : null;
+        if (compressed == null) {
+            compressed = doWithResource(resourceName, is -> {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (OutputStream gzip = new GZIPOutputStream(bytes)) {
+                    IOUtils.copy(is, gzip);
+                }
+                return bytes.toByteArray();
+            });
+            COMPRESSED_RESOURCES.put(resourceName, new SoftReference<>(compressed));
+        }
+        return compressed;
     }
 
+    /**
+     * Returns the MD5 digest of the resource, as computed by {@link Util#getDigestOf(InputStream)}.
+     */
     public static String unsafeResourceDigest(String resourceName) {
+        String digest = RESOURCE_DIGESTS.get().getProperty(resourceName + ".md5");
+        if (digest != null) {
+            return digest;
+        }
         try {
             return doWithResource(resourceName, Util::getDigestOf);
         } catch (IOException | InterruptedException e) {
@@ -26,6 +119,63 @@ public final class CopyUtil {
         }
     }
 
+    public static String unsafeResourceSha256(String resourceName) {
+        String digest = RESOURCE_DIGESTS.get().getProperty(resourceName + ".sha256");
+        if (digest != null) {
+            return digest;
+        }
+        try {
+            return doWithResource(resourceName, is -> {
+                MessageDigest sha256 = sha256();
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = is.read(buffer)) != -1) {
+                    sha256.update(buffer, 0, read);
+                }
+                return Util.toHexString(sha256.digest());
+            });
+        } catch (IOException | InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Loads the digests computed when building the plugin, resources without a digest are read to compute it.
+     */
+    private static Properties loadResourceDigests() {
+        Properties digests = new Properties();
+        try (InputStream is = CopyUtil.class.getResourceAsStream(RESOURCE_DIGESTS_NAME)) {
+            if (is != null) {
+                digests.load(is);
+            } else {
+                LOGGER.warning("Could not find resource: " + RESOURCE_DIGESTS_NAME);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to load " + RESOURCE_DIGESTS_NAME, e);
+        }
+        return digests;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns the paths of the files on the node which are missing or whose digest differs from the expected one.
+     * A {@code null} digest expects the file to be absent, so it is returned if it exists. All files are checked
+     * with a single call to the node.
+     */
+    public static Set<String> changedFiles(@CheckForNull VirtualChannel channel,
+                                           Map<String, String> expectedDigests) throws IOException, InterruptedException {
+        ChangedFiles changedFiles = new ChangedFiles(expectedDigests);
+        // Like FilePath, a missing channel means the files are local
+        return channel != null ? channel.call(changedFiles) : changedFiles.call();
+    }
+
     private static <T> T doWithResource(String resourceName, CheckedFunction<InputStream, T> action) throws IOException, InterruptedException {
         try (InputStream is = CopyUtil.class.getResourceAsStream("/hudson/plugins/gradle/injection/" + resourceName)) {
             if (is == null) {
@@ -35,6 +185,62 @@ public final class CopyUtil {
         }
     }
 
+    private static final class ChangedFiles extends MasterToSlaveCallable<Set<String>, IOException> {
+
+        private final Map<String, String> expectedDigests;
+
+        ChangedFiles(Map<String, String> expectedDigests) {
+            this.expectedDigests = expectedDigests;
+        }
+
+        @Override
+        public Set<String> call() throws IOException {
+            Set<String> changed = new HashSet<>();
+            for (Map.Entry<String, String> expected : expectedDigests.entrySet()) {
+                File file = new File(expected.getKey());
+                if (expected.getValue() == null) {
+                    if (file.exists()) {
+                        changed.add(expected.getKey());
+                    }
+                } else if (!file.exists() || !Objects.equals(Util.getDigestOf(file), expected.getValue())) {
+                    changed.add(expected.getKey());
+                }
+            }
+            return changed;
+        }
+    }
+
+    /**
+     * Writes the decompressed stream to a temporary file first, so the target never holds a partial resource.
+     */
+    private static final class WriteCompressed extends MasterToSlaveCallable<Void, IOException> {
+
+        private final String target;
+        private final InputStream compressed;
+
+        WriteCompressed(String target, InputStream compressed) {
+            this.target = target;
+            this.compressed = compressed;
+        }
+
+        @Override
+        public Void call() throws IOException {
+            Path targetFile = Paths.get(target);
+            Files.createDirectories(targetFile.getParent());
+
+            Path temporaryFile = Files.createTempFile(targetFile.getParent(), targetFile.getFileName().toString(), ".tmp");
+            try {
+                try (InputStream is = new GZIPInputStream(compressed)) {
+                    Files.copy(is, temporaryFile, StandardCopyOption.REPLACE_EXISTING);
+                }
+                Files.move(temporaryFile, targetFile, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temporaryFile);
+            }
+            return null;
+        }
+    }
+
     @FunctionalInterface
     private interface CheckedFunction<T, R> {
 
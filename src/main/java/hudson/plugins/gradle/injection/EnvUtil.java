@@ -8,9 +8,14 @@ import jenkins.model.Jenkins;
 
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
+import java.io.IOException;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.stream.Collectors;
 
 public final class EnvUtil {
 
@@ -35,34 +40,57 @@ public final class EnvUtil {
         return env != null ? env.get(key) : null;
     }
 
-    public static void removeEnvVars(Node node, Collection<String> keys) {
-        keys.forEach(key -> removeEnvVar(node, key));
+    public static boolean removeEnvVars(Node node, Collection<String> keys) throws IOException {
+        Map<String, String> values = new HashMap<>();
+        keys.forEach(key -> values.put(key, null));
+        return setEnvVars(node, values);
     }
 
-    public static void removeEnvVar(Node node, String key) {
-        setEnvVar(node, key, null);
+    public static boolean removeEnvVar(Node node, String key) throws IOException {
+        return setEnvVar(node, key, null);
     }
 
-    public static void setEnvVar(Node node, String key, @Nullable String value) {
+    public static boolean setEnvVar(Node node, String key, @Nullable String value) throws IOException {
+        return setEnvVars(node, Collections.singletonMap(key, value));
+    }
+
+    /**
+     * Sets all variables on the node at once, removing those whose value is {@code null}, and saves the node once
+     * if any of them changed. Returns whether any variable changed, the node is not saved otherwise.
+     */
+    public static boolean setEnvVars(Node node, Map<String, String> values) throws IOException {
         List<EnvironmentVariablesNodeProperty> all =
             node.getNodeProperties().getAll(EnvironmentVariablesNodeProperty.class);
 
         if (all.isEmpty()) {
-            if (value != null) {
-                node.getNodeProperties().add(
-                    new EnvironmentVariablesNodeProperty(
-                        new EnvironmentVariablesNodeProperty.Entry(key, value)));
-            } // noop if null
-            return;
+            List<EnvironmentVariablesNodeProperty.Entry> entries = values.entrySet().stream()
+                .filter(value -> value.getValue() != null)
+                .map(value -> new EnvironmentVariablesNodeProperty.Entry(value.getKey(), value.getValue()))
+                .collect(Collectors.toList());
+            if (entries.isEmpty()) {
+                return false;
+            }
+            // Adding the property saves the node
+            node.getNodeProperties().add(new EnvironmentVariablesNodeProperty(entries));
+            return true;
         }
 
-        EnvironmentVariablesNodeProperty last = Iterables.getLast(all);
-        if (!Objects.equals(value, last.getEnvVars().get(key))) {
-            if (value != null) {
-                last.getEnvVars().put(key, value);
+        EnvVars envVars = Iterables.getLast(all).getEnvVars();
+        boolean changed = false;
+        for (Map.Entry<String, String> value : values.entrySet()) {
+            if (Objects.equals(value.getValue(), envVars.get(value.getKey()))) {
+                continue;
+            }
+            if (value.getValue() != null) {
+                envVars.put(value.getKey(), value.getValue());
             } else {
-                last.getEnvVars().remove(key);
+                envVars.remove(value.getKey());
             }
+            changed = true;
+        }
+        if (changed) {
+            node.save();
         }
+        return changed;
     }
 }
@@ -6,17 +6,18 @@ import com.google.common.base.Suppliers;
 import hudson.EnvVars;
 import hudson.FilePath;
 import hudson.model.Node;
-import hudson.plugins.gradle.util.CollectionUtil;
+import hudson.plugins.gradle.injection.InjectionRecorder.Phase;
 import hudson.remoting.VirtualChannel;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 import static hudson.plugins.gradle.injection.CopyUtil.copyResourceToNode;
 import static hudson.plugins.gradle.injection.CopyUtil.unsafeResourceDigest;
@@ -25,8 +26,8 @@ public class GradleBuildScanInjection implements BuildScanInjection {
 
     private static final Logger LOGGER = Logger.getLogger(GradleBuildScanInjection.class.getName());
 
-    private static final String JENKINSGRADLEPLUGIN_BUILD_SCAN_OVERRIDE_GRADLE_HOME = "JENKINSGRADLEPLUGIN_BUILD_SCAN_OVERRIDE_GRADLE_HOME";
-    private static final String JENKINSGRADLEPLUGIN_BUILD_SCAN_OVERRIDE_HOME = "JENKINSGRADLEPLUGIN_BUILD_SCAN_OVERRIDE_HOME";
+    static final String JENKINSGRADLEPLUGIN_BUILD_SCAN_OVERRIDE_GRADLE_HOME = "JENKINSGRADLEPLUGIN_BUILD_SCAN_OVERRIDE_GRADLE_HOME";
+    static final String JENKINSGRADLEPLUGIN_BUILD_SCAN_OVERRIDE_HOME = "JENKINSGRADLEPLUGIN_BUILD_SCAN_OVERRIDE_HOME";
 
     private static final String JENKINSGRADLEPLUGIN_GRADLE_ENTERPRISE_URL = "JENKINSGRADLEPLUGIN_GRADLE_ENTERPRISE_URL";
     private static final String JENKINSGRADLEPLUGIN_GRADLE_ENTERPRISE_ALLOW_UNTRUSTED_SERVER = "JENKINSGRADLEPLUGIN_GRADLE_ENTERPRISE_ALLOW_UNTRUSTED_SERVER";
@@ -53,54 +54,56 @@ public class GradleBuildScanInjection implements BuildScanInjection {
     private final Supplier<String> initScriptDigest = Suppliers.memoize(() -> unsafeResourceDigest(RESOURCE_INIT_SCRIPT_GRADLE));
 
     @Override
-    public boolean isEnabled(Node node) {
-        InjectionConfig config = InjectionConfig.get();
-
-        if (!config.isEnabled() || isMissingRequiredParameters(config)) {
+    public boolean isEnabled(InjectionConfigSnapshot config, Node node) {
+        if (!config.isEnabled() || config.isMissingGradleRequiredParameters()) {
             return false;
         }
 
-        Set<String> disabledNodes =
-            CollectionUtil.safeStream(config.getGradleInjectionDisabledNodes())
-                .map(NodeLabelItem::getLabel)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toSet());
-
-        Set<String> enabledNodes =
-            CollectionUtil.safeStream(config.getGradleInjectionEnabledNodes())
-                .map(NodeLabelItem::getLabel)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toSet());
-
-        return InjectionUtil.isInjectionEnabledForNode(node::getAssignedLabels, disabledNodes, enabledNodes);
+        return config.getGradleInjectionMatcher().matches(node.getAssignedLabels());
     }
 
-    private static boolean isMissingRequiredParameters(InjectionConfig config) {
-        String server = config.getServer();
-        String gradlePluginVersion = config.getGradlePluginVersion();
-
-        return InjectionUtil.isAnyInvalid(
-            InjectionConfig.checkRequiredUrl(server),
-            InjectionConfig.checkRequiredVersion(gradlePluginVersion)
-        );
+    @Override
+    public Map<String, String> injectedFiles(InjectionConfigSnapshot config,
+                                             Node node,
+                                             EnvVars envGlobal,
+                                             EnvVars envComputer) {
+        if (node == null || !isEnabled(config, node)) {
+            return Collections.emptyMap();
+        }
+        try {
+            FilePath gradleInitScriptFile =
+                getInitScriptFile(node.getChannel(), getInitScriptDirectory(envGlobal, envComputer));
+            return Collections.singletonMap(gradleInitScriptFile.getRemote(), initScriptDigest.get());
+        } catch (IllegalStateException e) {
+            // Reported by inject
+            return Collections.emptyMap();
+        }
     }
 
     @Override
-    public void inject(Node node, EnvVars envGlobal, EnvVars envComputer) {
-        boolean enabled = isEnabled(node);
+    public boolean inject(InjectionConfigSnapshot config,
+                          Node node,
+                          EnvVars envGlobal,
+                          EnvVars envComputer,
+                          Set<String> changedFiles,
+                          Map<String, String> environmentVariables) {
+        boolean enabled = isEnabled(config, node);
 
         try {
             String initScriptDirectory = getInitScriptDirectory(envGlobal, envComputer);
 
             if (enabled) {
-                inject(node, initScriptDirectory);
+                inject(config, node, initScriptDirectory, changedFiles, environmentVariables);
             } else {
-                cleanup(node, initScriptDirectory);
+                cleanup(node, initScriptDirectory, environmentVariables);
             }
+            return true;
         } catch (IllegalStateException e) {
+            InjectionRecorder.failed(e);
             if (enabled) {
                 LOGGER.log(Level.WARNING, "Unexpected exception while injecting build scans for Gradle", e);
             }
+            return false;
         }
     }
 
@@ -120,59 +123,63 @@ public class GradleBuildScanInjection implements BuildScanInjection {
         }
     }
 
-    private void inject(Node node, String initScriptDirectory) {
+    private void inject(InjectionConfigSnapshot config,
+                        Node node,
+                        String initScriptDirectory,
+                        Set<String> changedFiles,
+                        Map<String, String> environmentVariables) {
         try {
-            injectInitScript(node.getChannel(), initScriptDirectory);
-            injectEnvironmentVariables(node);
+            InjectionRecorder.record(Phase.INIT_SCRIPT,
+                () -> injectInitScript(node.getChannel(), initScriptDirectory, changedFiles));
         } catch (IOException | InterruptedException e) {
             throw new IllegalStateException(e);
         }
+
+        if (BuildScanEnvironmentContributor.PER_BUILD) {
+            // The variables are set for each build instead, remove those set by an earlier injection
+            ALL_INJECTED_ENVIRONMENT_VARIABLES.forEach(key -> environmentVariables.put(key, null));
+        } else {
+            environmentVariables.putAll(environmentVariables(config));
+        }
     }
 
-    private void injectInitScript(VirtualChannel channel, String initScriptDirectory) throws IOException, InterruptedException {
+    private void injectInitScript(VirtualChannel channel,
+                                  String initScriptDirectory,
+                                  Set<String> changedFiles) throws IOException, InterruptedException {
         FilePath gradleInitScriptFile = getInitScriptFile(channel, initScriptDirectory);
-        if (initScriptChanged(gradleInitScriptFile)) {
+        if (changedFiles.contains(gradleInitScriptFile.getRemote())) {
             LOGGER.info("Injecting Gradle init script " + gradleInitScriptFile);
 
             copyResourceToNode(gradleInitScriptFile, RESOURCE_INIT_SCRIPT_GRADLE);
         }
     }
 
-    private void injectEnvironmentVariables(Node node) {
-        InjectionConfig config = InjectionConfig.get();
-
-        EnvUtil.setEnvVar(node, JENKINSGRADLEPLUGIN_GRADLE_ENTERPRISE_URL, config.getServer());
-        EnvUtil.setEnvVar(node, JENKINSGRADLEPLUGIN_GRADLE_ENTERPRISE_PLUGIN_VERSION, config.getGradlePluginVersion());
-
-        if (config.isAllowUntrusted()) {
-            EnvUtil.setEnvVar(node, JENKINSGRADLEPLUGIN_GRADLE_ENTERPRISE_ALLOW_UNTRUSTED_SERVER, "true");
-        }
-
-        String pluginRepositoryUrl = config.getGradlePluginRepositoryUrl();
-        if (pluginRepositoryUrl != null && InjectionUtil.isValid(InjectionConfig.checkUrl(pluginRepositoryUrl))) {
-            EnvUtil.setEnvVar(node, JENKINSGRADLEPLUGIN_GRADLE_PLUGIN_REPOSITORY_URL, pluginRepositoryUrl);
-        }
-        String ccudPluginVersion = config.getCcudPluginVersion();
-        if (ccudPluginVersion != null && InjectionUtil.isValid(InjectionConfig.checkVersion(ccudPluginVersion))) {
-            EnvUtil.setEnvVar(node, JENKINSGRADLEPLUGIN_CCUD_PLUGIN_VERSION, ccudPluginVersion);
+    /**
+     * Returns the variables read by the init script, with a {@code null} value for those which don't apply.
+     */
+    static Map<String, String> environmentVariables(InjectionConfigSnapshot config) {
+        Map<String, String> values = new HashMap<>();
+        if (config.isMissingGradleRequiredParameters()) {
+            ALL_INJECTED_ENVIRONMENT_VARIABLES.forEach(key -> values.put(key, null));
+            return values;
         }
-    }
 
-    private boolean initScriptChanged(FilePath gradleInitScriptFile) throws IOException, InterruptedException {
-        if (!gradleInitScriptFile.exists()) {
-            return true;
-        }
-        String existingFileDigest = gradleInitScriptFile.digest();
-        return !Objects.equals(existingFileDigest, initScriptDigest.get());
+        values.put(JENKINSGRADLEPLUGIN_GRADLE_ENTERPRISE_URL, config.getServer());
+        values.put(JENKINSGRADLEPLUGIN_GRADLE_ENTERPRISE_PLUGIN_VERSION, config.getGradlePluginVersion());
+        values.put(JENKINSGRADLEPLUGIN_GRADLE_ENTERPRISE_ALLOW_UNTRUSTED_SERVER, config.isAllowUntrusted() ? "true" : null);
+        values.put(JENKINSGRADLEPLUGIN_GRADLE_PLUGIN_REPOSITORY_URL, config.getValidGradlePluginRepositoryUrl());
+        values.put(JENKINSGRADLEPLUGIN_CCUD_PLUGIN_VERSION, config.getValidCcudPluginVersion());
+        return values;
     }
 
-    private void cleanup(Node node, String initScriptDirectory) {
+    private void cleanup(Node node, String initScriptDirectory, Map<String, String> environmentVariables) {
         try {
-            removeInitScript(node.getChannel(), initScriptDirectory);
-            EnvUtil.removeEnvVars(node, ALL_INJECTED_ENVIRONMENT_VARIABLES);
+            InjectionRecorder.record(Phase.INIT_SCRIPT, () -> removeInitScript(node.getChannel(), initScriptDirectory));
         } catch (IOException | InterruptedException e) {
             throw new IllegalStateException(e);
         }
+
+        ALL_INJECTED_ENVIRONMENT_VARIABLES.forEach(key -> environmentVariables.put(key, null));
     }
 
     private void removeInitScript(VirtualChannel channel, String initScriptDirectory) throws IOException, InterruptedException {
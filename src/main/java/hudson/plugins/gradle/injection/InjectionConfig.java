@@ -21,11 +21,14 @@ import org.kohsuke.stapler.verb.POST;
 import javax.annotation.CheckForNull;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 // TODO: Consider splitting into two forms, one for Gradle, and one for Maven
 @Extension
 public class InjectionConfig extends GlobalConfiguration {
 
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
     private static final Set<String> LEGACY_GLOBAL_ENVIRONMENT_VARIABLES =
         ImmutableSet.of(
             "JENKINSGRADLEPLUGIN_GRADLE_ENTERPRISE_INJECTION",
@@ -60,8 +63,11 @@ public class InjectionConfig extends GlobalConfiguration {
     private ImmutableList<NodeLabelItem> mavenInjectionEnabledNodes;
     private ImmutableList<NodeLabelItem> mavenInjectionDisabledNodes;
 
+    private transient volatile InjectionConfigSnapshot snapshot;
+
     public InjectionConfig() {
         load();
+        publishSnapshot();
     }
 
     public static InjectionConfig get() {
@@ -81,6 +87,7 @@ public class InjectionConfig extends GlobalConfiguration {
     @DataBoundSetter
     public void setEnabled(boolean enabled) {
         this.enabled = enabled;
+        invalidateSnapshot();
     }
 
     @CheckForNull
@@ -91,6 +98,7 @@ public class InjectionConfig extends GlobalConfiguration {
     @DataBoundSetter
     public void setServer(String server) {
         this.server = Util.fixEmptyAndTrim(server);
+        invalidateSnapshot();
     }
 
     public boolean isAllowUntrusted() {
@@ -100,6 +108,7 @@ public class InjectionConfig extends GlobalConfiguration {
     @DataBoundSetter
     public void setAllowUntrusted(boolean allowUntrusted) {
         this.allowUntrusted = allowUntrusted;
+        invalidateSnapshot();
     }
 
     @CheckForNull
@@ -114,6 +123,7 @@ public class InjectionConfig extends GlobalConfiguration {
         } else {
             this.accessKey = accessKey;
         }
+        invalidateSnapshot();
     }
 
     @CheckForNull
@@ -124,6 +134,7 @@ public class InjectionConfig extends GlobalConfiguration {
     @DataBoundSetter
     public void setGradlePluginVersion(String gradlePluginVersion) {
         this.gradlePluginVersion = Util.fixEmptyAndTrim(gradlePluginVersion);
+        invalidateSnapshot();
     }
 
     @CheckForNull
@@ -134,6 +145,7 @@ public class InjectionConfig extends GlobalConfiguration {
     @DataBoundSetter
     public void setCcudPluginVersion(String ccudPluginVersion) {
         this.ccudPluginVersion = Util.fixEmptyAndTrim(ccudPluginVersion);
+        invalidateSnapshot();
     }
 
     @CheckForNull
@@ -144,6 +156,7 @@ public class InjectionConfig extends GlobalConfiguration {
     @DataBoundSetter
     public void setGradlePluginRepositoryUrl(String gradlePluginRepositoryUrl) {
         this.gradlePluginRepositoryUrl = Util.fixEmptyAndTrim(gradlePluginRepositoryUrl);
+        invalidateSnapshot();
     }
 
     @CheckForNull
@@ -155,6 +168,7 @@ public class InjectionConfig extends GlobalConfiguration {
     public void setGradleInjectionEnabledNodes(List<NodeLabelItem> gradleInjectionEnabledNodes) {
         this.gradleInjectionEnabledNodes =
             gradleInjectionEnabledNodes == null ? null : ImmutableList.copyOf(gradleInjectionEnabledNodes);
+        invalidateSnapshot();
     }
 
     @CheckForNull
@@ -166,6 +180,7 @@ public class InjectionConfig extends GlobalConfiguration {
     public void setGradleInjectionDisabledNodes(List<NodeLabelItem> gradleInjectionDisabledNodes) {
         this.gradleInjectionDisabledNodes =
             gradleInjectionDisabledNodes == null ? null : ImmutableList.copyOf(gradleInjectionDisabledNodes);
+        invalidateSnapshot();
     }
 
     public boolean isInjectMavenExtension() {
@@ -175,6 +190,7 @@ public class InjectionConfig extends GlobalConfiguration {
     @DataBoundSetter
     public void setInjectMavenExtension(boolean injectMavenExtension) {
         this.injectMavenExtension = injectMavenExtension;
+        invalidateSnapshot();
     }
 
     public boolean isInjectCcudExtension() {
@@ -184,6 +200,7 @@ public class InjectionConfig extends GlobalConfiguration {
     @DataBoundSetter
     public void setInjectCcudExtension(boolean injectCcudExtension) {
         this.injectCcudExtension = injectCcudExtension;
+        invalidateSnapshot();
     }
 
     @CheckForNull
@@ -195,6 +212,7 @@ public class InjectionConfig extends GlobalConfiguration {
     public void setMavenInjectionEnabledNodes(List<NodeLabelItem> mavenInjectionEnabledNodes) {
         this.mavenInjectionEnabledNodes =
             mavenInjectionEnabledNodes == null ? null : ImmutableList.copyOf(mavenInjectionEnabledNodes);
+        invalidateSnapshot();
     }
 
     @CheckForNull
@@ -206,10 +224,45 @@ public class InjectionConfig extends GlobalConfiguration {
     public void setMavenInjectionDisabledNodes(List<NodeLabelItem> mavenInjectionDisabledNodes) {
         this.mavenInjectionDisabledNodes =
             mavenInjectionDisabledNodes == null ? null : ImmutableList.copyOf(mavenInjectionDisabledNodes);
+        invalidateSnapshot();
+    }
+
+    /**
+     * Returns the snapshot of the current configuration.
+     * <p>
+     * The setters discard the published snapshot, a new one is published when it is requested next or the
+     * configuration is saved.
+     */
+    @Restricted(NoExternalUse.class)
+    public InjectionConfigSnapshot getSnapshot() {
+        InjectionConfigSnapshot current = snapshot;
+        return current != null ? current : republishSnapshot();
+    }
+
+    // Synchronized with configure, so a partially bound configuration is never published
+    private synchronized InjectionConfigSnapshot republishSnapshot() {
+        InjectionConfigSnapshot current = snapshot;
+        return current != null ? current : publishSnapshot();
+    }
+
+    private void invalidateSnapshot() {
+        snapshot = null;
+    }
+
+    @Override
+    public synchronized void save() {
+        publishSnapshot();
+        super.save();
+    }
+
+    private InjectionConfigSnapshot publishSnapshot() {
+        InjectionConfigSnapshot published = new InjectionConfigSnapshot(VERSIONS.incrementAndGet(), this);
+        snapshot = published;
+        return published;
     }
 
     @Override
-    public boolean configure(StaplerRequest req, JSONObject json) {
+    public synchronized boolean configure(StaplerRequest req, JSONObject json) {
         clearRepeatableProperties();
         req.bindJSON(this, json);
         save();
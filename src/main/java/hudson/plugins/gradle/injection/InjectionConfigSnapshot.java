@@ -0,0 +1,194 @@
+package hudson.plugins.gradle.injection;
+
+import com.google.common.collect.ImmutableMap;
+import hudson.util.Secret;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import javax.annotation.CheckForNull;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * An immutable copy of the {@link InjectionConfig}, published each time the configuration is saved. The injections
+ * and builds read the settings from a snapshot, so they see consistent settings without taking any lock, and
+ * everything derived from the settings, like the label matchers, is computed once per version.
+ */
+@Restricted(NoExternalUse.class)
+public final class InjectionConfigSnapshot {
+
+    private final long version;
+
+    private final boolean enabled;
+    private final String server;
+    private final boolean allowUntrusted;
+    private final String accessKey;
+
+    private final String gradlePluginVersion;
+    private final String ccudPluginVersion;
+    private final String gradlePluginRepositoryUrl;
+    private final NodeLabelMatcher gradleInjectionMatcher;
+
+    private final boolean injectMavenExtension;
+    private final boolean injectCcudExtension;
+    private final NodeLabelMatcher mavenInjectionMatcher;
+
+    // Validated once per snapshot, instead of for each node on each injection
+    private final boolean missingGradleRequiredParameters;
+    private final boolean missingMavenRequiredParameters;
+    private final String validGradlePluginRepositoryUrl;
+    private final String validCcudPluginVersion;
+
+    private final String fingerprint;
+    private final Map<String, String> buildEnvironment;
+
+    InjectionConfigSnapshot(long version, InjectionConfig config) {
+        this.version = version;
+
+        this.enabled = config.isEnabled();
+        this.server = config.getServer();
+        this.allowUntrusted = config.isAllowUntrusted();
+        Secret accessKey = config.getAccessKey();
+        this.accessKey = accessKey != null ? accessKey.getPlainText() : null;
+
+        this.gradlePluginVersion = config.getGradlePluginVersion();
+        this.ccudPluginVersion = config.getCcudPluginVersion();
+        this.gradlePluginRepositoryUrl = config.getGradlePluginRepositoryUrl();
+        this.gradleInjectionMatcher =
+            NodeLabelMatcher.compile(config.getGradleInjectionDisabledNodes(), config.getGradleInjectionEnabledNodes());
+
+        this.injectMavenExtension = config.isInjectMavenExtension();
+        this.injectCcudExtension = config.isInjectCcudExtension();
+        this.mavenInjectionMatcher =
+            NodeLabelMatcher.compile(config.getMavenInjectionDisabledNodes(), config.getMavenInjectionEnabledNodes());
+
+        this.missingGradleRequiredParameters = InjectionUtil.isAnyInvalid(
+            InjectionConfig.checkRequiredUrl(server),
+            InjectionConfig.checkRequiredVersion(gradlePluginVersion));
+        this.missingMavenRequiredParameters = InjectionUtil.isInvalid(InjectionConfig.checkRequiredUrl(server));
+        this.validGradlePluginRepositoryUrl =
+            gradlePluginRepositoryUrl != null && InjectionUtil.isValid(InjectionConfig.checkUrl(gradlePluginRepositoryUrl))
+                ? gradlePluginRepositoryUrl
+                : null;
+        this.validCcudPluginVersion =
+            ccudPluginVersion != null && InjectionUtil.isValid(InjectionConfig.checkVersion(ccudPluginVersion))
+                ? ccudPluginVersion
+                : null;
+
+        this.fingerprint = InjectionFingerprints.configFingerprint(config);
+        this.buildEnvironment = buildEnvironment(this);
+    }
+
+    /**
+     * Returns the version of the snapshot, which increases each time the configuration is saved.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @CheckForNull
+    public String getServer() {
+        return server;
+    }
+
+    public boolean isAllowUntrusted() {
+        return allowUntrusted;
+    }
+
+    @CheckForNull
+    public String getAccessKey() {
+        return accessKey;
+    }
+
+    @CheckForNull
+    public String getGradlePluginVersion() {
+        return gradlePluginVersion;
+    }
+
+    @CheckForNull
+    public String getCcudPluginVersion() {
+        return ccudPluginVersion;
+    }
+
+    @CheckForNull
+    public String getGradlePluginRepositoryUrl() {
+        return gradlePluginRepositoryUrl;
+    }
+
+    public NodeLabelMatcher getGradleInjectionMatcher() {
+        return gradleInjectionMatcher;
+    }
+
+    public boolean isInjectMavenExtension() {
+        return injectMavenExtension;
+    }
+
+    public boolean isInjectCcudExtension() {
+        return injectCcudExtension;
+    }
+
+    public NodeLabelMatcher getMavenInjectionMatcher() {
+        return mavenInjectionMatcher;
+    }
+
+    /**
+     * Returns whether the server url or the Gradle plugin version is missing or invalid.
+     */
+    public boolean isMissingGradleRequiredParameters() {
+        return missingGradleRequiredParameters;
+    }
+
+    /**
+     * Returns whether the server url is missing or invalid.
+     */
+    public boolean isMissingMavenRequiredParameters() {
+        return missingMavenRequiredParameters;
+    }
+
+    /**
+     * Returns the plugin repository url, or {@code null} if it is missing or invalid.
+     */
+    @CheckForNull
+    public String getValidGradlePluginRepositoryUrl() {
+        return validGradlePluginRepositoryUrl;
+    }
+
+    /**
+     * Returns the CCUD plugin version, or {@code null} if it is missing or invalid.
+     */
+    @CheckForNull
+    public String getValidCcudPluginVersion() {
+        return validCcudPluginVersion;
+    }
+
+    /**
+     * Returns the part of the injection fingerprints shared by all nodes, see {@link InjectionFingerprints}.
+     */
+    String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Returns the variables set for each build when {@link BuildScanEnvironmentContributor#PER_BUILD} is set.
+     */
+    Map<String, String> getBuildEnvironment() {
+        return buildEnvironment;
+    }
+
+    private static Map<String, String> buildEnvironment(InjectionConfigSnapshot config) {
+        Map<String, String> variables = new HashMap<>();
+        if (config.isEnabled()) {
+            variables.putAll(GradleBuildScanInjection.environmentVariables(config));
+            if (config.isInjectMavenExtension()) {
+                variables.putAll(MavenBuildScanInjection.environmentVariables(config));
+            }
+        }
+        variables.values().removeIf(Objects::isNull);
+        return ImmutableMap.copyOf(variables);
+    }
+}
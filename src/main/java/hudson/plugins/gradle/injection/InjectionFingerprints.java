@@ -0,0 +1,94 @@
+package hudson.plugins.gradle.injection;
+
+import hudson.EnvVars;
+import hudson.Util;
+import hudson.model.Label;
+import hudson.model.Node;
+import hudson.slaves.EnvironmentVariablesNodeProperty;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Remembers what has last been injected successfully into each node, so the injection can be skipped without
+ * any remote call when nothing changed.
+ * <p>
+ * A fingerprint covers the injection configuration, the labels of the node, the overrides of the init script
+ * location and the environment variables of the node. The injected resources are part of the plugin, they can only
+ * change when Jenkins is restarted, which also forgets all fingerprints.
+ */
+final class InjectionFingerprints {
+
+    private final Map<String, String> injectedFingerprints = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the part of the fingerprint shared by all nodes.
+     */
+    static String configFingerprint(InjectionConfig config) {
+        return String.join("\n",
+            String.valueOf(config.isEnabled()),
+            String.valueOf(config.getServer()),
+            String.valueOf(config.isAllowUntrusted()),
+            String.valueOf(config.getGradlePluginVersion()),
+            String.valueOf(config.getCcudPluginVersion()),
+            String.valueOf(config.getGradlePluginRepositoryUrl()),
+            labels(config.getGradleInjectionEnabledNodes()),
+            labels(config.getGradleInjectionDisabledNodes()),
+            String.valueOf(config.isInjectMavenExtension()),
+            String.valueOf(config.isInjectCcudExtension()),
+            labels(config.getMavenInjectionEnabledNodes()),
+            labels(config.getMavenInjectionDisabledNodes())
+        );
+    }
+
+    static String fingerprint(String configFingerprint, Node node, EnvVars envGlobal) {
+        String nodeLabels = node.getAssignedLabels().stream()
+            .map(Label::getName)
+            .sorted()
+            .collect(Collectors.joining(" "));
+        String nodeEnvironment = node.getNodeProperties().getAll(EnvironmentVariablesNodeProperty.class).stream()
+            .map(property -> property.getEnvVars().toString())
+            .collect(Collectors.joining());
+
+        return Util.getDigestOf(String.join("\n",
+            configFingerprint,
+            node.getNodeName(),
+            nodeLabels,
+            String.valueOf(EnvUtil.getEnv(envGlobal, GradleBuildScanInjection.JENKINSGRADLEPLUGIN_BUILD_SCAN_OVERRIDE_GRADLE_HOME)),
+            String.valueOf(EnvUtil.getEnv(envGlobal, GradleBuildScanInjection.JENKINSGRADLEPLUGIN_BUILD_SCAN_OVERRIDE_HOME)),
+            nodeEnvironment
+        ));
+    }
+
+    boolean isInjected(Node node, String fingerprint) {
+        return fingerprint.equals(injectedFingerprints.get(node.getNodeName()));
+    }
+
+    void setInjected(Node node, String fingerprint) {
+        injectedFingerprints.put(node.getNodeName(), fingerprint);
+    }
+
+    void invalidate(Node node) {
+        injectedFingerprints.remove(node.getNodeName());
+    }
+
+    /**
+     * Forgets the fingerprints of all nodes which no longer exist.
+     */
+    void retainAll(Collection<Node> nodes) {
+        Set<String> nodeNames = nodes.stream().map(Node::getNodeName).collect(Collectors.toSet());
+        injectedFingerprints.keySet().retainAll(nodeNames);
+    }
+
+    private static String labels(List<NodeLabelItem> items) {
+        return items == null ? "" : items.stream()
+            .map(NodeLabelItem::getLabel)
+            .filter(Objects::nonNull)
+            .collect(Collectors.joining(" "));
+    }
+}
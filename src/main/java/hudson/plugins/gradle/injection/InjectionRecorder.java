@@ -0,0 +1,111 @@
+package hudson.plugins.gradle.injection;
+
+import hudson.plugins.gradle.injection.InjectionStatus.Outcome;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the timings of the injection into an agent, see {@link InjectionStatus}.
+ * <p>
+ * The recording is bound to the injecting thread, so the injections and the transfers of the resources they copy
+ * don't need to pass it around. Nothing is recorded if no recording was started by the thread.
+ */
+final class InjectionRecorder {
+
+    private static final ThreadLocal<InjectionRecorder> CURRENT = new ThreadLocal<>();
+
+    private final String agent;
+    private final long startTime = System.currentTimeMillis();
+    private final long start = System.nanoTime();
+    private final long[] phaseNanos = new long[Phase.values().length];
+    private long bytesTransferred;
+    private String failure;
+
+    private InjectionRecorder(String agent) {
+        this.agent = agent;
+    }
+
+    static InjectionRecorder start(String agent) {
+        InjectionRecorder recorder = new InjectionRecorder(agent);
+        CURRENT.set(recorder);
+        return recorder;
+    }
+
+    InjectionStatus stop(Outcome outcome) {
+        CURRENT.remove();
+        return new InjectionStatus(
+            agent,
+            startTime,
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+            outcome,
+            millis(Phase.INIT_SCRIPT),
+            millis(Phase.MAVEN_EXTENSIONS),
+            millis(Phase.ENVIRONMENT_VARIABLES),
+            millis(Phase.MAVEN_OPTS),
+            bytesTransferred,
+            failure);
+    }
+
+    static void record(Phase phase, PhaseAction action) throws IOException, InterruptedException {
+        long phaseStart = System.nanoTime();
+        try {
+            action.run();
+        } finally {
+            phaseCompleted(phase, phaseStart);
+        }
+    }
+
+    static <T> T record(Phase phase, PhaseCallable<T> callable) throws IOException, InterruptedException {
+        long phaseStart = System.nanoTime();
+        try {
+            return callable.call();
+        } finally {
+            phaseCompleted(phase, phaseStart);
+        }
+    }
+
+    static void transferred(long bytes) {
+        InjectionRecorder recorder = CURRENT.get();
+        if (recorder != null) {
+            recorder.bytesTransferred += bytes;
+        }
+    }
+
+    /**
+     * Records why the injection failed, only the first failure is kept.
+     */
+    static void failed(Throwable cause) {
+        InjectionRecorder recorder = CURRENT.get();
+        if (recorder != null && recorder.failure == null) {
+            recorder.failure = cause.toString();
+        }
+    }
+
+    private static void phaseCompleted(Phase phase, long phaseStart) {
+        InjectionRecorder recorder = CURRENT.get();
+        if (recorder != null) {
+            recorder.phaseNanos[phase.ordinal()] += System.nanoTime() - phaseStart;
+        }
+    }
+
+    private long millis(Phase phase) {
+        return TimeUnit.NANOSECONDS.toMillis(phaseNanos[phase.ordinal()]);
+    }
+
+    enum Phase {
+        INIT_SCRIPT, MAVEN_EXTENSIONS, ENVIRONMENT_VARIABLES, MAVEN_OPTS
+    }
+
+    @FunctionalInterface
+    interface PhaseAction {
+
+        void run() throws IOException, InterruptedException;
+    }
+
+    @FunctionalInterface
+    interface PhaseCallable<T> {
+
+        T call() throws IOException, InterruptedException;
+    }
+}
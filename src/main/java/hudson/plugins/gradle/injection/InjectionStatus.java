@@ -0,0 +1,112 @@
+package hudson.plugins.gradle.injection;
+
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+import javax.annotation.CheckForNull;
+import java.util.Date;
+
+/**
+ * The last injection into an agent, with how long each of its phases took and how many bytes were transferred to
+ * the agent. Durations are in milliseconds.
+ */
+@ExportedBean(defaultVisibility = 2)
+public final class InjectionStatus {
+
+    private final String agent;
+    private final long startTime;
+    private final long duration;
+    private final Outcome outcome;
+    private final long initScriptDuration;
+    private final long mavenExtensionsDuration;
+    private final long environmentVariablesDuration;
+    private final long mavenOptsDuration;
+    private final long bytesTransferred;
+    private final String failure;
+
+    InjectionStatus(String agent,
+                    long startTime,
+                    long duration,
+                    Outcome outcome,
+                    long initScriptDuration,
+                    long mavenExtensionsDuration,
+                    long environmentVariablesDuration,
+                    long mavenOptsDuration,
+                    long bytesTransferred,
+                    @CheckForNull String failure) {
+        this.agent = agent;
+        this.startTime = startTime;
+        this.duration = duration;
+        this.outcome = outcome;
+        this.initScriptDuration = initScriptDuration;
+        this.mavenExtensionsDuration = mavenExtensionsDuration;
+        this.environmentVariablesDuration = environmentVariablesDuration;
+        this.mavenOptsDuration = mavenOptsDuration;
+        this.bytesTransferred = bytesTransferred;
+        this.failure = failure;
+    }
+
+    InjectionStatus withOutcome(Outcome outcome) {
+        return new InjectionStatus(agent, startTime, duration, outcome, initScriptDuration, mavenExtensionsDuration,
+            environmentVariablesDuration, mavenOptsDuration, bytesTransferred, failure);
+    }
+
+    @Exported
+    public String getAgent() {
+        return agent;
+    }
+
+    @Exported
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public Date getStartDate() {
+        return new Date(startTime);
+    }
+
+    @Exported
+    public long getDuration() {
+        return duration;
+    }
+
+    @Exported
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    @Exported
+    public long getInitScriptDuration() {
+        return initScriptDuration;
+    }
+
+    @Exported
+    public long getMavenExtensionsDuration() {
+        return mavenExtensionsDuration;
+    }
+
+    @Exported
+    public long getEnvironmentVariablesDuration() {
+        return environmentVariablesDuration;
+    }
+
+    @Exported
+    public long getMavenOptsDuration() {
+        return mavenOptsDuration;
+    }
+
+    @Exported
+    public long getBytesTransferred() {
+        return bytesTransferred;
+    }
+
+    @CheckForNull
+    @Exported
+    public String getFailure() {
+        return failure;
+    }
+
+    public enum Outcome {
+        SUCCEEDED, FAILED, TIMED_OUT
+    }
+}
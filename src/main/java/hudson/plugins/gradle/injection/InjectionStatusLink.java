@@ -0,0 +1,51 @@
+package hudson.plugins.gradle.injection;
+
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.model.Api;
+import hudson.model.ManagementLink;
+import hudson.plugins.gradle.Messages;
+import jenkins.model.Jenkins;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+import java.util.List;
+
+/**
+ * Lists the last injection into each agent, so the agents which slow down the injection can be found.
+ */
+@Extension
+@ExportedBean
+public class InjectionStatusLink extends ManagementLink {
+
+    @Override
+    public String getIconFileName() {
+        return "/plugin/gradle/images/svgs/gradle-build-scan.svg";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return Messages.InjectionStatusLink_DisplayName();
+    }
+
+    @Override
+    public String getDescription() {
+        return Messages.InjectionStatusLink_Description();
+    }
+
+    @Override
+    public String getUrlName() {
+        return "gradleInjectionStatus";
+    }
+
+    @Exported
+    public List<InjectionStatus> getAgents() {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        return ExtensionList.lookupSingleton(BuildScanInjectionListener.class).getStatuses();
+    }
+
+    public Api getApi() {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        return new Api(this);
+    }
+}
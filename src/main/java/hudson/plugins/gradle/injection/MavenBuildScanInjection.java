@@ -4,15 +4,18 @@ import hudson.EnvVars;
 import hudson.FilePath;
 import hudson.model.Computer;
 import hudson.model.Node;
+import hudson.plugins.gradle.injection.InjectionRecorder.Phase;
 import hudson.plugins.gradle.injection.MavenExtensionsHandler.MavenExtension;
-import hudson.plugins.gradle.util.CollectionUtil;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -51,73 +54,77 @@ public class MavenBuildScanInjection implements BuildScanInjection {
     private final MavenExtensionsHandler extensionsHandler = new MavenExtensionsHandler();
 
     @Override
-    public boolean isEnabled(Node node) {
-        InjectionConfig config = InjectionConfig.get();
-
-        if (!config.isEnabled() || !config.isInjectMavenExtension() || isMissingRequiredParameters(config)) {
+    public boolean isEnabled(InjectionConfigSnapshot config, Node node) {
+        if (!config.isEnabled() || !config.isInjectMavenExtension() || config.isMissingMavenRequiredParameters()) {
             return false;
         }
 
-        Set<String> disabledNodes =
-            CollectionUtil.safeStream(config.getMavenInjectionDisabledNodes())
-                .map(NodeLabelItem::getLabel)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toSet());
-
-        Set<String> enabledNodes =
-            CollectionUtil.safeStream(config.getMavenInjectionEnabledNodes())
-                .map(NodeLabelItem::getLabel)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toSet());
-
-        return InjectionUtil.isInjectionEnabledForNode(node::getAssignedLabels, disabledNodes, enabledNodes);
+        return config.getMavenInjectionMatcher().matches(node.getAssignedLabels());
     }
 
-    private static boolean isMissingRequiredParameters(InjectionConfig config) {
-        String server = config.getServer();
-
-        return InjectionUtil.isInvalid(InjectionConfig.checkRequiredUrl(server));
+    @Override
+    public Map<String, String> injectedFiles(InjectionConfigSnapshot config,
+                                             Node node,
+                                             EnvVars envGlobal,
+                                             EnvVars envComputer) {
+        FilePath nodeRootPath = node != null ? node.getRootPath() : null;
+        if (nodeRootPath == null || !isEnabled(config, node)) {
+            return Collections.emptyMap();
+        }
+        return extensionsHandler.getExtensionDigests(nodeRootPath, injectedExtensions(config));
     }
 
     @Override
-    public void inject(Node node, EnvVars envGlobal, EnvVars envComputer) {
-        boolean enabled = isEnabled(node);
+    public boolean inject(InjectionConfigSnapshot config,
+                          Node node,
+                          EnvVars envGlobal,
+                          EnvVars envComputer,
+                          Set<String> changedFiles,
+                          Map<String, String> environmentVariables) {
+        boolean enabled = isEnabled(config, node);
 
         try {
             if (node == null) {
-                return;
+                return true;
             }
 
             FilePath nodeRootPath = node.getRootPath();
             if (nodeRootPath == null) {
-                return;
+                return false;
             }
 
             if (enabled) {
-                inject(node, nodeRootPath);
+                inject(config, node, nodeRootPath, changedFiles, environmentVariables);
             } else {
-                cleanup(node, nodeRootPath);
+                cleanup(node, nodeRootPath, environmentVariables);
             }
+            return true;
         } catch (IllegalStateException e) {
+            InjectionRecorder.failed(e);
             if (enabled) {
                 LOGGER.log(Level.WARNING, "Unexpected exception while injecting build scans for Maven", e);
             }
+            return false;
         }
     }
 
-    private void inject(Node node, FilePath nodeRootPath) {
+    private void inject(InjectionConfigSnapshot config,
+                        Node node,
+                        FilePath nodeRootPath,
+                        Set<String> changedFiles,
+                        Map<String, String> environmentVariables) {
         try {
-            InjectionConfig config = InjectionConfig.get();
             String server = config.getServer();
 
             LOGGER.info("Injecting Maven extensions " + nodeRootPath);
 
+            Map<MavenExtension, FilePath> extensionLocations =
+                InjectionRecorder.record(Phase.MAVEN_EXTENSIONS, () -> copyExtensions(config, nodeRootPath, changedFiles));
+
             List<FilePath> extensions = new LinkedList<>();
-            extensions.add(extensionsHandler.copyExtensionToAgent(MavenExtension.GRADLE_ENTERPRISE, nodeRootPath));
+            extensions.add(extensionLocations.get(MavenExtension.GRADLE_ENTERPRISE));
             if (config.isInjectCcudExtension()) {
-                extensions.add(extensionsHandler.copyExtensionToAgent(MavenExtension.CCUD, nodeRootPath));
-            } else {
-                extensionsHandler.deleteExtensionFromAgent(MavenExtension.CCUD, nodeRootPath);
+                extensions.add(extensionLocations.get(MavenExtension.CCUD));
             }
 
             boolean isUnix = isUnix(node);
@@ -131,28 +138,59 @@ public class MavenBuildScanInjection implements BuildScanInjection {
                 systemProperties.add(new SystemProperty(GRADLE_ENTERPRISE_ALLOW_UNTRUSTED_SERVER_PROPERTY_KEY, "true"));
             }
 
-            MAVEN_OPTS_SETTER.appendIfMissing(node, systemProperties);
+            String mavenOpts =
+                InjectionRecorder.record(Phase.MAVEN_OPTS, () -> MAVEN_OPTS_SETTER.withSystemProperties(node, systemProperties));
 
             // Configuration needed to support https://plugins.jenkins.io/maven-plugin/
-            extensions.add(extensionsHandler.copyExtensionToAgent(MavenExtension.CONFIGURATION, nodeRootPath));
-
-            EnvUtil.setEnvVar(node, JENKINSGRADLEPLUGIN_MAVEN_PLUGIN_CONFIG_EXT_CLASSPATH, constructExtClasspath(extensions, isUnix));
-            EnvUtil.setEnvVar(node, JENKINSGRADLEPLUGIN_MAVEN_PLUGIN_CONFIG_SERVER_URL, server);
-            if (config.isAllowUntrusted()) {
-                EnvUtil.setEnvVar(node, JENKINSGRADLEPLUGIN_MAVEN_PLUGIN_CONFIG_ALLOW_UNTRUSTED_SERVER, "true");
+            extensions.add(extensionLocations.get(MavenExtension.CONFIGURATION));
+
+            environmentVariables.put(MavenOptsSetter.MAVEN_OPTS_VAR, mavenOpts);
+            environmentVariables.put(JENKINSGRADLEPLUGIN_MAVEN_PLUGIN_CONFIG_EXT_CLASSPATH, constructExtClasspath(extensions, isUnix));
+            if (BuildScanEnvironmentContributor.PER_BUILD) {
+                // The variables are set for each build instead, remove those set by an earlier injection
+                environmentVariables.put(JENKINSGRADLEPLUGIN_MAVEN_PLUGIN_CONFIG_SERVER_URL, null);
+                environmentVariables.put(JENKINSGRADLEPLUGIN_MAVEN_PLUGIN_CONFIG_ALLOW_UNTRUSTED_SERVER, null);
             } else {
-                EnvUtil.removeEnvVar(node, JENKINSGRADLEPLUGIN_MAVEN_PLUGIN_CONFIG_ALLOW_UNTRUSTED_SERVER);
+                environmentVariables.putAll(environmentVariables(config));
             }
         } catch (IOException | InterruptedException e) {
             throw new IllegalStateException(e);
         }
     }
 
-    private void cleanup(Node node, FilePath rootPath) {
+    /**
+     * Returns the variables which don't depend on the node, with a {@code null} value for those which don't apply.
+     */
+    static Map<String, String> environmentVariables(InjectionConfigSnapshot config) {
+        Map<String, String> values = new HashMap<>();
+        boolean missingRequiredParameters = config.isMissingMavenRequiredParameters();
+        values.put(JENKINSGRADLEPLUGIN_MAVEN_PLUGIN_CONFIG_SERVER_URL, missingRequiredParameters ? null : config.getServer());
+        values.put(JENKINSGRADLEPLUGIN_MAVEN_PLUGIN_CONFIG_ALLOW_UNTRUSTED_SERVER,
+            !missingRequiredParameters && config.isAllowUntrusted() ? "true" : null);
+        return values;
+    }
+
+    private Map<MavenExtension, FilePath> copyExtensions(InjectionConfigSnapshot config,
+                                                         FilePath nodeRootPath,
+                                                         Set<String> changedFiles) throws IOException, InterruptedException {
+        return extensionsHandler.copyChangedExtensionsToAgent(nodeRootPath, injectedExtensions(config), changedFiles);
+    }
+
+    private static Set<MavenExtension> injectedExtensions(InjectionConfigSnapshot config) {
+        Set<MavenExtension> injectedExtensions = EnumSet.of(MavenExtension.GRADLE_ENTERPRISE, MavenExtension.CONFIGURATION);
+        if (config.isInjectCcudExtension()) {
+            injectedExtensions.add(MavenExtension.CCUD);
+        }
+        return injectedExtensions;
+    }
+
+    private void cleanup(Node node, FilePath rootPath, Map<String, String> environmentVariables) {
         try {
-            extensionsHandler.deleteAllExtensionsFromAgent(rootPath);
-            MAVEN_OPTS_SETTER.remove(node);
-            EnvUtil.removeEnvVars(node, ALL_INJECTED_ENVIRONMENT_VARIABLES);
+            InjectionRecorder.record(Phase.MAVEN_EXTENSIONS, () -> extensionsHandler.deleteAllExtensionsFromAgent(rootPath));
+            String mavenOpts = InjectionRecorder.record(Phase.MAVEN_OPTS, () -> MAVEN_OPTS_SETTER.withoutSystemProperties(node));
+
+            ALL_INJECTED_ENVIRONMENT_VARIABLES.forEach(key -> environmentVariables.put(key, null));
+            environmentVariables.put(MavenOptsSetter.MAVEN_OPTS_VAR, mavenOpts);
         } catch (IOException | InterruptedException e) {
             throw new IllegalStateException(e);
         }
@@ -3,20 +3,26 @@ package hudson.plugins.gradle.injection;
 import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
 import hudson.FilePath;
+import hudson.plugins.gradle.injection.ResourceCache.CachedResource;
 import org.apache.commons.io.IOUtils;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Objects;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
-import static hudson.plugins.gradle.injection.CopyUtil.copyResourceToNode;
 import static hudson.plugins.gradle.injection.CopyUtil.unsafeResourceDigest;
+import static hudson.plugins.gradle.injection.CopyUtil.unsafeResourceSha256;
 
 public class MavenExtensionsHandler {
 
@@ -28,13 +34,84 @@ public class MavenExtensionsHandler {
             .collect(Collectors.toMap(h -> h.extension, Function.identity()));
 
     public FilePath copyExtensionToAgent(MavenExtension extension, FilePath rootPath) throws IOException, InterruptedException {
-        return fileHandlers.get(extension).copyExtensionToAgent(rootPath);
+        return copyExtensionsToAgent(rootPath, EnumSet.of(extension)).get(extension);
+    }
+
+    /**
+     * Copies the extensions to the agent which are not already present, and returns the paths to the extensions
+     * on the agent. The extensions present on the agent are checked with a single call to the agent, and only
+     * the extensions missing from the {@link ResourceCache} of the agent are transferred.
+     */
+    public Map<MavenExtension, FilePath> copyExtensionsToAgent(FilePath rootPath,
+                                                               Set<MavenExtension> extensions) throws IOException, InterruptedException {
+        Map<MavenExtension, FilePath> extensionLocations = getExtensionLocations(rootPath, extensions);
+        copyExtensionsToAgent(rootPath, extensionLocations);
+        return extensionLocations;
+    }
+
+    /**
+     * Like {@link #copyExtensionsToAgent(FilePath, Set)}, but only calls the agent if one of the extensions is in
+     * {@code changedFiles}, the files found to be changed by checking the {@link #getExtensionDigests}. The other
+     * extensions are deleted if they are in {@code changedFiles}.
+     */
+    public Map<MavenExtension, FilePath> copyChangedExtensionsToAgent(FilePath rootPath,
+                                                                      Set<MavenExtension> extensions,
+                                                                      Set<String> changedFiles) throws IOException, InterruptedException {
+        for (MavenExtension extension : MavenExtension.values()) {
+            FilePath extensionLocation = fileHandlers.get(extension).getExtensionLocation(rootPath);
+            if (!extensions.contains(extension) && changedFiles.contains(extensionLocation.getRemote())) {
+                extensionLocation.delete();
+            }
+        }
+
+        Map<MavenExtension, FilePath> extensionLocations = getExtensionLocations(rootPath, extensions);
+        boolean changed = extensionLocations.values().stream()
+            .anyMatch(extensionLocation -> changedFiles.contains(extensionLocation.getRemote()));
+        if (changed) {
+            // All extensions are passed, so the cache keeps the unchanged ones as used
+            copyExtensionsToAgent(rootPath, extensionLocations);
+        }
+        return extensionLocations;
+    }
+
+    /**
+     * Returns the paths of all extensions on the agent, mapped to the digests of the extensions. The extensions
+     * which are not part of {@code extensions} are mapped to {@code null}, they are expected to be absent.
+     */
+    public Map<String, String> getExtensionDigests(FilePath rootPath, Set<MavenExtension> extensions) {
+        Map<String, String> digests = new HashMap<>();
+        for (MavenExtensionFileHandler fileHandler : fileHandlers.values()) {
+            String digest = extensions.contains(fileHandler.extension) ? fileHandler.extensionDigest.get() : null;
+            digests.put(fileHandler.getExtensionLocation(rootPath).getRemote(), digest);
+        }
+        return digests;
+    }
+
+    private Map<MavenExtension, FilePath> getExtensionLocations(FilePath rootPath, Set<MavenExtension> extensions) {
+        Map<MavenExtension, FilePath> extensionLocations = new EnumMap<>(MavenExtension.class);
+        for (MavenExtension extension : extensions) {
+            extensionLocations.put(extension, fileHandlers.get(extension).getExtensionLocation(rootPath));
+        }
+        return extensionLocations;
+    }
+
+    private void copyExtensionsToAgent(FilePath rootPath,
+                                       Map<MavenExtension, FilePath> extensionLocations) throws IOException, InterruptedException {
+        List<CachedResource> resources = new ArrayList<>();
+        for (Map.Entry<MavenExtension, FilePath> extensionLocation : extensionLocations.entrySet()) {
+            resources.add(fileHandlers.get(extensionLocation.getKey()).asCachedResource(extensionLocation.getValue()));
+        }
+        ResourceCache.copyResourcesToNode(rootPath, resources);
     }
 
     public void deleteExtensionFromAgent(MavenExtension extension, FilePath rootPath) throws IOException, InterruptedException {
         fileHandlers.get(extension).deleteExtensionFromAgent(rootPath);
     }
 
+    /**
+     * Deletes the extensions, the {@link ResourceCache} of the agent is kept, as it may be shared with other
+     * controllers, its unused entries expire on their own.
+     */
     public void deleteAllExtensionsFromAgent(FilePath rootPath) throws IOException, InterruptedException {
         rootPath.child(LIB_DIR_PATH).deleteContents();
     }
@@ -43,23 +120,19 @@ public class MavenExtensionsHandler {
 
         private final MavenExtension extension;
         private final Supplier<String> extensionDigest;
+        private final Supplier<String> extensionSha256;
 
         MavenExtensionFileHandler(MavenExtension extension) {
             this.extension = extension;
             this.extensionDigest =
                 Suppliers.memoize(() -> unsafeResourceDigest(extension.getEmbeddedJarName()));
+            this.extensionSha256 =
+                Suppliers.memoize(() -> unsafeResourceSha256(extension.getEmbeddedJarName()));
         }
 
-        /**
-         * Copies the extension to the agent, if it is not already present, and returns a path to the extension
-         * on the agent.
-         */
-        public FilePath copyExtensionToAgent(FilePath rootPath) throws IOException, InterruptedException {
-            FilePath extensionLocation = getExtensionLocation(rootPath);
-            if (extensionChanged(extensionLocation)) {
-                copyResourceToNode(extensionLocation, extension.getEmbeddedJarName());
-            }
-            return extensionLocation;
+        CachedResource asCachedResource(FilePath extensionLocation) {
+            return new CachedResource(
+                extension.getEmbeddedJarName(), extensionLocation, extensionDigest.get(), extensionSha256.get());
         }
 
         public void deleteExtensionFromAgent(FilePath rootPath) throws IOException, InterruptedException {
@@ -72,14 +145,6 @@ public class MavenExtensionsHandler {
         private FilePath getExtensionLocation(FilePath rootPath) {
             return rootPath.child(LIB_DIR_PATH).child(extension.getTargetJarName());
         }
-
-        private boolean extensionChanged(FilePath nodePath) throws IOException, InterruptedException {
-            if (!nodePath.exists()) {
-                return true;
-            }
-            String existingFileDigest = nodePath.digest();
-            return !Objects.equals(existingFileDigest, extensionDigest.get());
-        }
     }
 
     public enum MavenExtension {
@@ -0,0 +1,104 @@
+package hudson.plugins.gradle.injection;
+
+import com.google.common.collect.ImmutableList;
+
+import javax.annotation.CheckForNull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The options of {@code MAVEN_OPTS}, split the way a shell splits them: at whitespace outside of quotes. Each option
+ * keeps its original text, so the options which are kept are written back unchanged, quotes included.
+ */
+final class MavenOptions {
+
+    private static final String SPACE = " ";
+    private static final String SYSTEM_PROPERTY_PREFIX = "-D";
+
+    private final List<Option> options;
+
+    private MavenOptions(List<Option> options) {
+        this.options = options;
+    }
+
+    static MavenOptions parse(@CheckForNull String mavenOpts) {
+        if (mavenOpts == null) {
+            return new MavenOptions(ImmutableList.of());
+        }
+
+        ImmutableList.Builder<Option> options = ImmutableList.builder();
+        StringBuilder text = new StringBuilder();
+        StringBuilder value = new StringBuilder();
+        char quote = 0;
+        for (int i = 0; i < mavenOpts.length(); i++) {
+            char c = mavenOpts.charAt(i);
+            if (quote == 0 && Character.isWhitespace(c)) {
+                if (text.length() > 0) {
+                    options.add(new Option(text.toString(), value.toString()));
+                    text.setLength(0);
+                    value.setLength(0);
+                }
+                continue;
+            }
+
+            text.append(c);
+            if (c == quote) {
+                quote = 0;
+            } else if (quote == 0 && (c == '"' || c == '\'')) {
+                quote = c;
+            } else {
+                value.append(c);
+            }
+        }
+        if (text.length() > 0) {
+            options.add(new Option(text.toString(), value.toString()));
+        }
+        return new MavenOptions(options.build());
+    }
+
+    /**
+     * Returns the options without the system properties with any of the keys.
+     */
+    MavenOptions withoutSystemProperties(Set<String> keys) {
+        List<Option> kept = options.stream()
+            .filter(option -> !keys.contains(option.systemPropertyKey()))
+            .collect(Collectors.toList());
+        return kept.size() == options.size() ? this : new MavenOptions(kept);
+    }
+
+    MavenOptions withSystemProperties(List<SystemProperty> systemProperties) {
+        List<Option> appended = new ArrayList<>(options);
+        for (SystemProperty systemProperty : systemProperties) {
+            appended.add(new Option(systemProperty.asString(), systemProperty.asString()));
+        }
+        return new MavenOptions(appended);
+    }
+
+    String asString() {
+        return options.stream()
+            .map(option -> option.text)
+            .collect(Collectors.joining(SPACE));
+    }
+
+    private static final class Option {
+
+        private final String text;
+        private final String value;
+
+        Option(String text, String value) {
+            this.text = text;
+            this.value = value;
+        }
+
+        @CheckForNull
+        String systemPropertyKey() {
+            if (!value.startsWith(SYSTEM_PROPERTY_PREFIX)) {
+                return null;
+            }
+            int separator = value.indexOf('=');
+            return value.substring(SYSTEM_PROPERTY_PREFIX.length(), separator < 0 ? value.length() : separator);
+        }
+    }
+}
@@ -1,10 +1,18 @@
 package hudson.plugins.gradle.injection;
 
+import antlr.ANTLRException;
 import hudson.Extension;
 import hudson.Util;
 import hudson.model.AbstractDescribableImpl;
 import hudson.model.Descriptor;
+import hudson.model.Label;
+import hudson.plugins.gradle.Messages;
+import hudson.util.FormValidation;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.verb.POST;
 
 import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
@@ -34,5 +42,20 @@ public class NodeLabelItem extends AbstractDescribableImpl<NodeLabelItem> implem
         public String getDisplayName() {
             return "";
         }
+
+        @Restricted(NoExternalUse.class)
+        @POST
+        public FormValidation doCheckLabel(@QueryParameter String value) {
+            String label = Util.fixEmptyAndTrim(value);
+            if (label == null) {
+                return FormValidation.ok();
+            }
+            try {
+                Label.parseExpression(label);
+                return FormValidation.ok();
+            } catch (ANTLRException e) {
+                return FormValidation.error(Messages.NodeLabelItem_InvalidLabelExpression(e.getMessage()));
+            }
+        }
     }
 }
@@ -0,0 +1,146 @@
+package hudson.plugins.gradle.injection;
+
+import antlr.ANTLRException;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import hudson.model.Label;
+import hudson.model.labels.LabelAtom;
+import hudson.plugins.gradle.util.CollectionUtil;
+
+import javax.annotation.CheckForNull;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Decides whether an injection is enabled for a node, based on the labels of the node. A node is matched if it
+ * matches none of the disabled label expressions, and, unless there are no enabled label expressions, at least one
+ * of the enabled ones.
+ * <p>
+ * Instances are immutable, so the expressions are compiled once per configuration and shared by all nodes.
+ * Expressions which are plain labels, by far the most common ones, are looked up by name without evaluating them.
+ */
+public final class NodeLabelMatcher {
+
+    private static final Logger LOGGER = Logger.getLogger(NodeLabelMatcher.class.getName());
+
+    private static final NodeLabelMatcher ALL =
+        new NodeLabelMatcher(ImmutableSet.of(), ImmutableList.of(), ImmutableSet.of(), ImmutableList.of());
+
+    private final Set<String> disabledLabels;
+    private final List<Label> disabledExpressions;
+    private final Set<String> enabledLabels;
+    private final List<Label> enabledExpressions;
+
+    private NodeLabelMatcher(Set<String> disabledLabels,
+                             List<Label> disabledExpressions,
+                             Set<String> enabledLabels,
+                             List<Label> enabledExpressions) {
+        this.disabledLabels = disabledLabels;
+        this.disabledExpressions = disabledExpressions;
+        this.enabledLabels = enabledLabels;
+        this.enabledExpressions = enabledExpressions;
+    }
+
+    public static NodeLabelMatcher compile(@CheckForNull List<NodeLabelItem> disabledNodes,
+                                           @CheckForNull List<NodeLabelItem> enabledNodes) {
+        Set<String> disabledLabels = new HashSet<>();
+        List<Label> disabledExpressions = new ArrayList<>();
+        compile(disabledNodes, disabledLabels, disabledExpressions);
+
+        Set<String> enabledLabels = new HashSet<>();
+        List<Label> enabledExpressions = new ArrayList<>();
+        compile(enabledNodes, enabledLabels, enabledExpressions);
+
+        if (disabledExpressions.isEmpty() && enabledExpressions.isEmpty()) {
+            return of(disabledLabels, enabledLabels);
+        }
+        return new NodeLabelMatcher(
+            ImmutableSet.copyOf(disabledLabels),
+            ImmutableList.copyOf(disabledExpressions),
+            ImmutableSet.copyOf(enabledLabels),
+            ImmutableList.copyOf(enabledExpressions));
+    }
+
+    /**
+     * Returns a matcher for plain label names.
+     */
+    static NodeLabelMatcher of(@CheckForNull Collection<String> disabledLabels,
+                               @CheckForNull Collection<String> enabledLabels) {
+        if ((disabledLabels == null || disabledLabels.isEmpty()) && (enabledLabels == null || enabledLabels.isEmpty())) {
+            return ALL;
+        }
+        return new NodeLabelMatcher(
+            disabledLabels == null ? ImmutableSet.of() : ImmutableSet.copyOf(disabledLabels),
+            ImmutableList.of(),
+            enabledLabels == null ? ImmutableSet.of() : ImmutableSet.copyOf(enabledLabels),
+            ImmutableList.of());
+    }
+
+    public boolean matches(@CheckForNull Collection<LabelAtom> labels) {
+        if (this == ALL) {
+            return true;
+        }
+
+        boolean enabled = enabledLabels.isEmpty() && enabledExpressions.isEmpty();
+        if (labels != null) {
+            for (LabelAtom label : labels) {
+                String name = label.getName();
+                if (disabledLabels.contains(name)) {
+                    return false;
+                }
+                enabled |= enabledLabels.contains(name);
+            }
+        }
+
+        if (disabledExpressions.isEmpty() && (enabled || enabledExpressions.isEmpty())) {
+            return enabled;
+        }
+        Collection<LabelAtom> atoms = labels != null ? labels : Collections.emptySet();
+        for (Label expression : disabledExpressions) {
+            if (expression.matches(atoms)) {
+                return false;
+            }
+        }
+        if (!enabled) {
+            for (Label expression : enabledExpressions) {
+                if (expression.matches(atoms)) {
+                    return true;
+                }
+            }
+        }
+        return enabled;
+    }
+
+    private static void compile(@CheckForNull List<NodeLabelItem> items, Set<String> labels, List<Label> expressions) {
+        CollectionUtil.safeStream(items)
+            .map(NodeLabelItem::getLabel)
+            .filter(Objects::nonNull)
+            .forEach(label -> {
+                Label expression = parse(label);
+                if (expression == null) {
+                    // Until label expressions were supported, any text was taken as a label name
+                    labels.add(label);
+                } else if (expression instanceof LabelAtom) {
+                    labels.add(((LabelAtom) expression).getName());
+                } else {
+                    expressions.add(expression);
+                }
+            });
+    }
+
+    @CheckForNull
+    private static Label parse(String label) {
+        try {
+            return Label.parseExpression(label);
+        } catch (ANTLRException e) {
+            LOGGER.warning("Invalid label expression, matching it as a label: " + label + ": " + e.getMessage());
+            return null;
+        }
+    }
+}
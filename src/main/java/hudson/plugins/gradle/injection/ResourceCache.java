@@ -0,0 +1,165 @@
+package hudson.plugins.gradle.injection;
+
+import hudson.FilePath;
+import hudson.Util;
+import hudson.remoting.VirtualChannel;
+import jenkins.security.MasterToSlaveCallable;
+
+import javax.annotation.CheckForNull;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import static hudson.plugins.gradle.injection.CopyUtil.copyResourceToNode;
+
+/**
+ * Copies resources to an agent through a cache on the agent, in which each resource is stored under its SHA-256
+ * digest. A resource is only transferred if the cache doesn't hold it yet, so agents whose root directory is
+ * shared by several Jenkins controllers, or which see the same resources again after an upgrade or a downgrade,
+ * don't receive it twice. The resources are then copied from the cache to their target location on the agent,
+ * which is what builds refer to. The injections only go through the cache once a check of the targets found one of
+ * them to be changed, see {@link CopyUtil#changedFiles}.
+ * <p>
+ * Cached resources which have not been used by any controller for {@link #MAX_UNUSED_DAYS} days are deleted.
+ */
+final class ResourceCache {
+
+    private static final Logger LOGGER = Logger.getLogger(ResourceCache.class.getName());
+
+    static final String CACHE_DIR_PATH = "jenkins-gradle-plugin/cache";
+
+    private static final long MAX_UNUSED_DAYS = 30;
+
+    private ResourceCache() {
+    }
+
+    /**
+     * Copies the resources to their targets on the agent, unless the targets are already up to date.
+     */
+    static void copyResourcesToNode(FilePath rootPath, List<CachedResource> resources) throws IOException, InterruptedException {
+        VirtualChannel channel = rootPath.getChannel();
+        String cacheDirectory = rootPath.child(CACHE_DIR_PATH).getRemote();
+
+        List<CachedResource> missing = install(channel, cacheDirectory, resources);
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        for (CachedResource resource : missing) {
+            copyResourceToNode(new FilePath(channel, resource.cacheFile(cacheDirectory)), resource.resourceName);
+        }
+
+        // Another controller may write the same cached file concurrently, copy directly if that garbled it
+        for (CachedResource resource : install(channel, cacheDirectory, resources)) {
+            copyResourceToNode(new FilePath(channel, resource.target), resource.resourceName);
+        }
+    }
+
+    private static List<CachedResource> install(@CheckForNull VirtualChannel channel,
+                                               String cacheDirectory,
+                                               List<CachedResource> resources) throws IOException, InterruptedException {
+        Install install = new Install(cacheDirectory, resources);
+        // Like FilePath, a missing channel means the files are local
+        return channel != null ? channel.call(install) : install.call();
+    }
+
+    static final class CachedResource implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String resourceName;
+        private final String target;
+        private final String digest;
+        private final String sha256;
+
+        /**
+         * @param digest the digest of the resource as computed by {@link Util#getDigestOf(File)}
+         */
+        CachedResource(String resourceName, FilePath target, String digest, String sha256) {
+            this.resourceName = resourceName;
+            this.target = target.getRemote();
+            this.digest = digest;
+            this.sha256 = sha256;
+        }
+
+        private String cacheFile(String cacheDirectory) {
+            return cacheDirectory + "/" + sha256 + "-" + new File(target).getName();
+        }
+    }
+
+    /**
+     * Copies the cached resources to their targets, and returns the resources which are not cached.
+     */
+    private static final class Install extends MasterToSlaveCallable<List<CachedResource>, IOException> {
+
+        private final String cacheDirectory;
+        private final List<CachedResource> resources;
+
+        Install(String cacheDirectory, List<CachedResource> resources) {
+            this.cacheDirectory = cacheDirectory;
+            this.resources = resources;
+        }
+
+        @Override
+        public List<CachedResource> call() throws IOException {
+            long now = System.currentTimeMillis();
+            List<CachedResource> missing = new ArrayList<>();
+            for (CachedResource resource : resources) {
+                File cacheFile = new File(resource.cacheFile(cacheDirectory));
+                File target = new File(resource.target);
+
+                if (!hasDigest(target, resource.digest)) {
+                    if (!hasDigest(cacheFile, resource.digest)) {
+                        missing.add(resource);
+                        continue;
+                    }
+                    Files.createDirectories(target.getParentFile().toPath());
+                    Files.copy(cacheFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+                // Only a hint for deleting unused resources, the cache may be owned by another controller's user
+                if (cacheFile.exists() && !cacheFile.setLastModified(now)) {
+                    LOGGER.info("Failed to mark " + cacheFile + " as used");
+                }
+            }
+            if (missing.isEmpty()) {
+                deleteUnused(now);
+            }
+            return missing;
+        }
+
+        private void deleteUnused(long now) {
+            Set<String> used = resources.stream()
+                .map(resource -> new File(resource.cacheFile(cacheDirectory)).getName())
+                .collect(Collectors.toSet());
+            long unusedSince = now - TimeUnit.DAYS.toMillis(MAX_UNUSED_DAYS);
+
+            File[] cacheFiles = new File(cacheDirectory).listFiles();
+            if (cacheFiles == null) {
+                return;
+            }
+            for (File cacheFile : cacheFiles) {
+                if (!used.contains(cacheFile.getName()) && cacheFile.lastModified() < unusedSince) {
+                    try {
+                        Files.deleteIfExists(cacheFile.toPath());
+                    } catch (IOException e) {
+                        LOGGER.log(Level.INFO, "Failed to delete the unused " + cacheFile, e);
+                    }
+                }
+            }
+        }
+
+        private static boolean hasDigest(File file, String digest) throws IOException {
+            return file.exists() && Objects.equals(Util.getDigestOf(file), digest);
+        }
+    }
+}
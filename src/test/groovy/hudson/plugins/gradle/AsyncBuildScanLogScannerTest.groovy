@@ -0,0 +1,80 @@
+package hudson.plugins.gradle
+
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+
+class AsyncBuildScanLogScannerTest extends Specification {
+
+    def "finds the same build scans as the synchronous scanner once flushed"() {
+        given:
+        def lines = (1..5000).collect { i ->
+            i % 7 == 0 ? 'Publishing build scan...' : i % 7 == 3 ? "https://gradle.com/s/${i}" : "line ${i}"
+        }
+        def syncScans = []
+        def asyncScans = new CopyOnWriteArrayList()
+        def syncScanner = new BuildScanLogScanner(syncScans.&add)
+        def asyncScanner = new AsyncBuildScanLogScanner(asyncScans.&add)
+
+        when:
+        lines.each { line ->
+            def bytes = "${line}\n".getBytes(StandardCharsets.UTF_8)
+            syncScanner.scanLine(bytes, 0, bytes.length, StandardCharsets.UTF_8)
+            asyncScanner.scanLine(bytes, 0, bytes.length, StandardCharsets.UTF_8)
+        }
+        asyncScanner.flush()
+
+        then:
+        !syncScans.empty
+        asyncScans == syncScans
+    }
+
+    def "flushing waits for lines scanned in the background"() {
+        given:
+        def scans = new CopyOnWriteArrayList()
+        def scanner = new AsyncBuildScanLogScanner(scans.&add)
+
+        when:
+        scanner.scanLine('Publishing build scan...')
+        scanner.scanLine('https://gradle.com/s/abc')
+        scanner.flush()
+
+        then:
+        scans == ['https://gradle.com/s/abc']
+    }
+
+    def "blocks the writing thread while all lines are waiting to be scanned"() {
+        given:
+        def scanning = new CountDownLatch(1)
+        def scans = new CopyOnWriteArrayList()
+        def scanner = new AsyncBuildScanLogScanner({ url ->
+            scanning.await()
+            scans.add(url)
+        } as BuildScanPublishedListener)
+        def writer = new Thread({
+            scanner.scanLine('Publishing build scan...')
+            scanner.scanLine('https://gradle.com/s/first')
+            (1..2000).each { scanner.scanLine("line ${it}") }
+        })
+
+        when:
+        writer.start()
+        // The background thread waits in the listener, so the writer runs out of buffers
+        writer.join(3000)
+
+        then:
+        writer.alive
+        writer.state == Thread.State.WAITING
+
+        when:
+        scanning.countDown()
+        writer.join(60000)
+        scanner.flush()
+
+        then:
+        !writer.alive
+        scans == ['https://gradle.com/s/first']
+    }
+}
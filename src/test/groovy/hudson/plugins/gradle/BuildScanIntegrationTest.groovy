@@ -79,6 +79,25 @@ class BuildScanIntegrationTest extends GradleAbstractIntegrationTest {
         def action = build.getAction(BuildScanAction)
         action.scanUrls.size() == 1
         new URL(action.scanUrls.get(0))
+        build.getAction(GradleTaskOutcomeAction).taskOutcomes.total == 1
+    }
+
+    def 'no task actions are added to builds which ran no Gradle tasks'() {
+        given:
+        GradleTaskTimelineRecorder.ENABLED = true
+        FreeStyleProject p = j.createFreeStyleProject()
+        p.buildWrappersList.add(new BuildScanBuildWrapper())
+        p.buildersList.add(SystemUtils.IS_OS_UNIX ? new Shell('echo hello') : new BatchFile('echo hello'))
+
+        when:
+        def build = j.buildAndAssertSuccess(p)
+
+        then:
+        build.getAction(GradleTaskTimelineAction) == null
+        build.getAction(GradleTaskOutcomeAction) == null
+
+        cleanup:
+        GradleTaskTimelineRecorder.ENABLED = false
     }
 
     def 'detects build scan in pipeline log'() {
@@ -115,6 +134,70 @@ node {
         new URL(action.scanUrls.get(0))
     }
 
+    def 'findBuildScans only scans the log written since its previous invocation'() {
+        given:
+        def pipelineJob = j.createProject(WorkflowJob)
+        pipelineJob.setDefinition(new CpsFlowDefinition("""
+echo 'Publishing build scan...'
+echo 'https://scans.gradle.com/s/first'
+def firstScans = findBuildScans()
+assert firstScans == ['https://scans.gradle.com/s/first']
+echo 'Publishing build scan...'
+echo 'https://scans.gradle.com/s/second'
+def secondScans = findBuildScans()
+assert secondScans == ['https://scans.gradle.com/s/first', 'https://scans.gradle.com/s/second']
+assert findBuildScans() == secondScans
+""", false))
+
+        when:
+        def build = j.buildAndAssertSuccess(pipelineJob)
+
+        then:
+        println JenkinsRule.getLog(build)
+        build.getAction(BuildScanAction).scanUrls == ['https://scans.gradle.com/s/first', 'https://scans.gradle.com/s/second']
+        build.getAction(BuildScanLogCheckpoint).offset > 0
+    }
+
+    def 'the log checkpoint is saved with the build'() {
+        given:
+        FreeStyleProject p = j.createFreeStyleProject()
+        // The commands aren't echoed, so the URL is only logged once
+        p.buildersList.add(SystemUtils.IS_OS_UNIX
+            ? new Shell("set +x\necho 'Publishing build scan...'\necho 'https://scans.gradle.com/s/first'")
+            : new BatchFile("@echo off\r\necho Publishing build scan...\r\necho https://scans.gradle.com/s/first"))
+        def build = j.buildAndAssertSuccess(p)
+
+        when:
+        BuildScanLogCheckpoint.forRun(build).scanNewOutput(build)
+        build.reload()
+
+        then:
+        build.getAction(BuildScanLogCheckpoint).offset > 0
+        build.getAction(BuildScanAction).scanUrls == ['https://scans.gradle.com/s/first']
+    }
+
+    def 'findBuildScans finds the last build scans when searching from the end of the log'() {
+        given:
+        def pipelineJob = j.createProject(WorkflowJob)
+        pipelineJob.setDefinition(new CpsFlowDefinition("""
+echo 'Publishing build scan...'
+echo 'https://scans.gradle.com/s/first'
+echo 'Publishing build scan...'
+echo 'https://scans.gradle.com/s/second'
+echo 'Publishing build scan...'
+echo 'https://scans.gradle.com/s/third'
+assert findBuildScans(fromEnd: true) == ['https://scans.gradle.com/s/third']
+assert findBuildScans(fromEnd: true, maxScans: 2) == ['https://scans.gradle.com/s/second', 'https://scans.gradle.com/s/third']
+""", false))
+
+        when:
+        def build = j.buildAndAssertSuccess(pipelineJob)
+
+        then:
+        println JenkinsRule.getLog(build)
+        build.getAction(BuildScanAction).scanUrls == ['https://scans.gradle.com/s/third', 'https://scans.gradle.com/s/second']
+    }
+
     def 'detects build scan in pipeline log using withGradle'() {
         given:
         gradleInstallationRule.gradleVersion = '5.6.4'
@@ -249,6 +332,7 @@ stage('Final') {
         def action = build.getAction(BuildScanAction)
         action.scanUrls.size() == 1
         new URL(action.scanUrls.get(0))
+        build.getAction(GradleTaskOutcomeAction) == null
     }
 
     def 'build scan action is exposed via rest API'() {
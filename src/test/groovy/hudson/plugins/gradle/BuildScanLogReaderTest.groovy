@@ -0,0 +1,116 @@
+package hudson.plugins.gradle
+
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.nio.charset.StandardCharsets
+import java.nio.file.Path
+
+class BuildScanLogReaderTest extends Specification {
+
+    private static final String SCAN = 'https://gradle.com/s/abc'
+    private static final String LOG = "line\nPublishing build scan...\n${SCAN}\nline\n"
+    private static final int LONGEST_LINE = 'Publishing build scan...\n'.length()
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder()
+
+    @Unroll
+    def "finds a build scan crossing a region boundary with regions of #regionSize bytes and complete log #logComplete"() {
+        given:
+        def logFile = writeLog(LOG)
+        def scans = []
+
+        when:
+        def consumed = scan(logFile, 0, scans, logComplete, regionSize)
+
+        then:
+        scans == [SCAN]
+        consumed == LOG.length()
+
+        where:
+        [regionSize, logComplete] << [(LONGEST_LINE + 1)..LOG.length(), [true, false]].combinations()
+    }
+
+    @Unroll
+    def "scans a trailing incomplete line only if the log is complete #logComplete"() {
+        given:
+        def log = "Publishing build scan...\n${SCAN}"
+        def logFile = writeLog(log)
+        def scans = []
+
+        when:
+        def consumed = scan(logFile, 0, scans, logComplete, 1024)
+
+        then:
+        scans == expectedScans
+        consumed == (logComplete ? log.length() : LONGEST_LINE)
+
+        where:
+        logComplete || expectedScans
+        true        || [SCAN]
+        false       || []
+    }
+
+    def "scans a trailing incomplete line once it is complete"() {
+        given:
+        def logFile = writeLog("Publishing build scan...\n${SCAN.substring(0, 10)}")
+        def scans = []
+        def scanner = new BuildScanLogScanner(scans.&add)
+
+        when:
+        def consumed = BuildScanLogReader.scan(logFile, 0, StandardCharsets.UTF_8, scanner, false, 1024)
+        logFile.toFile() << "${SCAN.substring(10)}\n"
+        def resumed = new BuildScanLogScanner(scans.&add, scanner.linesSinceBuildScanPublishingMessage)
+        consumed += BuildScanLogReader.scan(logFile, consumed, StandardCharsets.UTF_8, resumed, true, 1024)
+
+        then:
+        scans == [SCAN]
+        consumed == logFile.toFile().length()
+    }
+
+    @Unroll
+    def "skips regions without a line separator with complete log #logComplete"() {
+        given:
+        def log = "${'x' * 100}\nPublishing build scan...\n${SCAN}\n"
+        def logFile = writeLog(log)
+        def scans = []
+
+        when:
+        def consumed = scan(logFile, 0, scans, logComplete, 40)
+
+        then:
+        scans == [SCAN]
+        consumed == log.length()
+
+        where:
+        logComplete << [true, false]
+    }
+
+    def "skips a region without a line separator while looking for the build scan"() {
+        given:
+        def log = "Publishing build scan...\n${'x' * 100}\n${SCAN}\n"
+        def logFile = writeLog(log)
+        def scans = []
+
+        when:
+        def consumed = scan(logFile, 0, scans, true, 40)
+
+        then:
+        scans == [SCAN]
+        consumed == log.length()
+    }
+
+    private Path writeLog(String content) {
+        def file = tempFolder.newFile()
+        file.setText(content, 'UTF-8')
+        return file.toPath()
+    }
+
+    private static long scan(Path logFile, long offset, List<String> scans, boolean logComplete, int regionSize) {
+        def scanner = new BuildScanLogScanner(scans.&add)
+        return BuildScanLogReader.scan(logFile, offset, StandardCharsets.UTF_8, scanner, logComplete, regionSize)
+    }
+}
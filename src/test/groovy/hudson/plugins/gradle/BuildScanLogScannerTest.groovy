@@ -0,0 +1,43 @@
+package hudson.plugins.gradle
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.nio.charset.StandardCharsets
+
+@Unroll
+class BuildScanLogScannerTest extends Specification {
+
+    def "finds build scan in #lines"() {
+        given:
+        def stringScans = []
+        def byteScans = []
+        def stringScanner = new BuildScanLogScanner(stringScans.&add)
+        def byteScanner = new BuildScanLogScanner(byteScans.&add)
+
+        when:
+        lines.each { line ->
+            stringScanner.scanLine(line)
+            def bytes = "${line}\r\n".getBytes(StandardCharsets.UTF_8)
+            byteScanner.scanLine(bytes, 0, bytes.length, StandardCharsets.UTF_8)
+        }
+
+        then:
+        stringScans == expectedScans
+        byteScans == expectedScans
+
+        where:
+        lines                                                                                   || expectedScans
+        ['Publishing build scan...', 'https://gradle.com/s/abc']                                || ['https://gradle.com/s/abc']
+        ['[INFO] Publishing build information...', '[INFO] http://localhost/s/abc']             || ['http://localhost/s/abc']
+        ['Publishing build scan...', 'Upload:', 'https://gradle.com/s/abc trailing']            || ['https://gradle.com/s/abc']
+        ['Publishing build scan...', 'https://gradle.com/s/ü']                                  || ['https://gradle.com/s/ü']
+        ['https://gradle.com/s/abc']                                                            || []
+        ['Publishing build scan..', 'https://gradle.com/s/abc']                                 || []
+        ['Publishing build scan...', 'httpx://gradle.com', 'ftp://gradle.com']                  || []
+        ['Publishing build scan...'] + ([''] * 10) + ['https://gradle.com/s/abc']               || []
+        ['Publishing build scan...'] + ([''] * 9) + ['https://gradle.com/s/abc']                || ['https://gradle.com/s/abc']
+        ['Publishing build scan...', 'https://gradle.com/s/a', 'https://gradle.com/s/b']        || ['https://gradle.com/s/a']
+        ['Publishing build scan...', 'https://gradle.com/s/a', 'Publishing build scan...', 'https://gradle.com/s/b'] || ['https://gradle.com/s/a', 'https://gradle.com/s/b']
+    }
+}
@@ -0,0 +1,21 @@
+package hudson.plugins.gradle
+
+import spock.lang.Specification
+
+class EncodedConsoleNoteTest extends Specification {
+
+    def "encodes the note only once"() {
+        given:
+        def notesCreated = 0
+        def encodedNote = new EncodedConsoleNote({ notesCreated++; new GradleTaskNote() })
+
+        when:
+        def first = encodedNote.bytes
+        def second = encodedNote.bytes
+
+        then:
+        notesCreated == 1
+        first.is(second)
+        first == new GradleTaskNote().encodeToBytes().toByteArray()
+    }
+}
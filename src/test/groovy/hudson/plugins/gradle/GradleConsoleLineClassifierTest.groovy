@@ -0,0 +1,69 @@
+package hudson.plugins.gradle
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.nio.charset.Charset
+import java.nio.charset.StandardCharsets
+
+@Unroll
+class GradleConsoleLineClassifierTest extends Specification {
+
+    def "classifies line '#line'"() {
+        given:
+        def bytes = "${line}\n".getBytes(StandardCharsets.UTF_8)
+
+        expect:
+        GradleConsoleLineClassifier.isTaskLine(bytes, bytes.length) == taskLine
+        GradleConsoleLineClassifier.isOutcomeLine(bytes, bytes.length) == outcomeLine
+
+        where:
+        line                                     | taskLine | outcomeLine
+        ':compileJava'                           | true     | false
+        '> Task :compileJava UP-TO-DATE'         | true     | false
+        '> Task'                                 | false    | false
+        'BUILD SUCCESSFUL in 1s'                 | false    | true
+        'BUILD FAILED in 1s'                     | false    | true
+        'BUILD'                                  | false    | false
+        'Publishing build scan...'               | false    | false
+        '[INFO] Publishing build information...' | false    | false
+        'Publishing'                             | false    | false
+        'Übersetze :compileJava'                 | false    | false
+        ''                                       | false    | false
+    }
+
+    def "task outcome of '#line' is #outcome"() {
+        given:
+        def bytes = "${line}\n".getBytes(StandardCharsets.UTF_8)
+
+        expect:
+        GradleConsoleLineClassifier.taskOutcome(bytes, bytes.length) == outcome
+
+        where:
+        line                                  | outcome
+        ':compileJava'                        | GradleTaskOutcome.EXECUTED
+        '> Task :compileJava UP-TO-DATE'      | GradleTaskOutcome.UP_TO_DATE
+        '> Task :app:test FROM-CACHE'         | GradleTaskOutcome.FROM_CACHE
+        '> Task :app:test NO-SOURCE'          | GradleTaskOutcome.NO_SOURCE
+        '> Task :app:test SKIPPED'            | GradleTaskOutcome.SKIPPED
+        '> Task :app:test FAILED'             | GradleTaskOutcome.FAILED
+        '> Task :app:test UP-TO-DATE-ISH'     | GradleTaskOutcome.EXECUTED
+        '> Task :app:test'                    | GradleTaskOutcome.EXECUTED
+        ':::: ERRORS'                         | null
+        '> Task ::app'                        | null
+        'BUILD SUCCESSFUL in 1s'              | null
+    }
+
+    def "supports charset #charset"() {
+        expect:
+        GradleConsoleLineClassifier.supports(Charset.forName(charset)) == supported
+
+        where:
+        charset      | supported
+        'UTF-8'      | true
+        'ISO-8859-1' | true
+        'US-ASCII'   | true
+        'UTF-16'     | false
+        'UTF-16LE'   | false
+    }
+}
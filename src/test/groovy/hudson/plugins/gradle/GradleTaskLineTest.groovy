@@ -0,0 +1,35 @@
+package hudson.plugins.gradle
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+@Unroll
+class GradleTaskLineTest extends Specification {
+
+    def "parses task line '#line'"() {
+        when:
+        def taskLine = GradleTaskLine.parse(line)
+
+        then:
+        taskLine.taskPath == taskPath
+        taskLine.progressStatus == progressStatus
+
+        where:
+        line                                   | taskPath            | progressStatus
+        ':compileJava'                         | 'compileJava'       | null
+        ':compileJava UP-TO-DATE'              | 'compileJava'       | 'UP-TO-DATE'
+        '> Task :app:test'                     | 'app:test'          | null
+        '> Task :app:test FROM-CACHE'          | 'app:test'          | 'FROM-CACHE'
+        '> Task :app:test\tNO-SOURCE\n'        | 'app:test'          | 'NO-SOURCE'
+        '> Task :app:test FAILED'              | 'app:test'          | null
+        '> Task :app:test SKIPPED trailing'    | 'app:test'          | 'SKIPPED'
+    }
+
+    def "does not parse '#line'"() {
+        expect:
+        GradleTaskLine.parse(line) == null
+
+        where:
+        line << ['', ':', '::::', '> Task :', '> Task ::app', '> Task', 'compileJava', ' :compileJava']
+    }
+}
@@ -26,6 +26,13 @@ class GradleTaskNoteTest extends Specification {
         ':::: ERRORS'             | ':::: ERRORS'
         ':PARENT:TASK'            | ':<b class=gradle-task>PARENT:TASK</b>'
         ':PARENT:TASK UP-TO-DATE' | ':<b class=gradle-task>PARENT:TASK</b> <span class=gradle-task-progress-status>UP-TO-DATE</span>'
+        '> Task :TASK'            | '&gt;<b class=gradle-task> Task :TASK</b>'
+        '> Task :TASK SKIPPED'    | '&gt;<b class=gradle-task> Task :TASK</b> <span class=gradle-task-progress-status>SKIPPED</span>'
+        '> Task :P:T NO-SOURCE'   | '&gt;<b class=gradle-task> Task :P:T</b> <span class=gradle-task-progress-status>NO-SOURCE</span>'
+        '> Task :TASK DUMMY'      | '&gt;<b class=gradle-task> Task :TASK</b> DUMMY'
+        '> Task ::TASK'           | '&gt; Task ::TASK'
+        '> Task :'                | '&gt; Task :'
+        'TASK :TASK'              | 'TASK :TASK'
     }
 
     void 'no annotation when disabled'() {
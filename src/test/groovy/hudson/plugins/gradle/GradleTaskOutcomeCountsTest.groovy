@@ -0,0 +1,57 @@
+package hudson.plugins.gradle
+
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+
+class GradleTaskOutcomeCountsTest extends Specification {
+
+    def "counts the task outcomes written to the console"() {
+        given:
+        def counts = new GradleTaskOutcomeCounts()
+        def annotator = new GradleConsoleAnnotator(new ByteArrayOutputStream(), StandardCharsets.UTF_8, false, {}, null, counts)
+
+        when:
+        annotator.write('''\
+> Task :compileJava UP-TO-DATE
+> Task :processResources NO-SOURCE
+> Task :classes UP-TO-DATE
+> Task :app:compileJava FROM-CACHE
+> Task :app:test
+> Task :app:check SKIPPED
+> Task :app:jar FAILED
+:::: ERRORS
+
+BUILD FAILED in 1s
+'''.getBytes(StandardCharsets.UTF_8))
+        annotator.close()
+
+        then:
+        counts.total == 7
+        counts.executed == 2
+        counts.failed == 1
+        counts.avoided == 5
+        counts.upToDate == 2
+        counts.fromCache == 1
+        counts.noSource == 1
+        counts.skipped == 1
+    }
+
+    def "adds counts"() {
+        given:
+        def counts = new GradleTaskOutcomeCounts()
+        def other = new GradleTaskOutcomeCounts()
+        other.count(GradleTaskOutcome.FROM_CACHE)
+        other.count(GradleTaskOutcome.EXECUTED)
+
+        when:
+        counts.add(other)
+        counts.add(other)
+
+        then:
+        counts.fromCache == 2
+        counts.executed == 2
+        !counts.empty
+        new GradleTaskOutcomeCounts().empty
+    }
+}
@@ -0,0 +1,60 @@
+package hudson.plugins.gradle
+
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+
+import static hudson.plugins.gradle.GradleTaskOutcome.EXECUTED
+import static hudson.plugins.gradle.GradleTaskOutcome.FAILED
+import static hudson.plugins.gradle.GradleTaskOutcome.FROM_CACHE
+import static hudson.plugins.gradle.GradleTaskOutcome.UP_TO_DATE
+
+class GradleTaskTimelineRecorderTest extends Specification {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder()
+
+    def "records the tasks written to the console"() {
+        given:
+        def timelineFile = new File(tempFolder.root, GradleTaskTimelineAction.TIMELINE_FILE_NAME)
+        def annotator = new GradleConsoleAnnotator(
+            new ByteArrayOutputStream(), StandardCharsets.UTF_8, true, {}, new GradleTaskTimelineRecorder(timelineFile), null)
+
+        when:
+        annotator.write('''\
+> Task :compileJava UP-TO-DATE
+> Task :app:test FROM-CACHE
+> Task :app:jar
+Some output
+> Task :app:check FAILED
+
+BUILD FAILED in 1s
+'''.getBytes(StandardCharsets.UTF_8))
+        annotator.close()
+
+        then:
+        def tasks = GradleTaskTimelineAction.read(timelineFile)
+        tasks*.path == ['compileJava', 'app:test', 'app:jar', 'app:check']
+        tasks*.outcome == [UP_TO_DATE, FROM_CACHE, EXECUTED, FAILED]
+        tasks.every { it.startTime > 0 && it.duration >= 0 }
+    }
+
+    def "appends the tasks of several Gradle invocations"() {
+        given:
+        def timelineFile = new File(tempFolder.root, GradleTaskTimelineAction.TIMELINE_FILE_NAME)
+
+        when:
+        ['first', 'second'].each { project ->
+            def recorder = new GradleTaskTimelineRecorder(timelineFile)
+            recorder.onTaskLine(GradleTaskLine.parse(":${project}:build"), 1000)
+            recorder.flush(1500)
+        }
+
+        then:
+        def tasks = GradleTaskTimelineAction.read(timelineFile)
+        tasks*.path == ['first:build', 'second:build']
+        tasks*.duration == [500, 500]
+    }
+}
@@ -0,0 +1,66 @@
+package hudson.plugins.gradle.injection
+
+import hudson.model.FreeStyleProject
+import hudson.model.Label
+import hudson.model.Result
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition
+import org.jenkinsci.plugins.workflow.job.WorkflowJob
+import org.junit.Rule
+import org.junit.rules.RuleChain
+import spock.lang.Unroll
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class BackgroundInjectionTest extends BaseInjectionIntegrationTest {
+
+    @Rule
+    public final RuleChain rules = RuleChain.outerRule(noSpaceInTmpDirs).around(j)
+
+    @Unroll
+    def "#type build waits for a pending injection into its agent"(String type) {
+        given:
+        BackgroundInjection.ENABLED = true
+        def agent = createSlave('foo')
+        def job = type == 'pipeline' ? pipelineJob() : freestyleJob()
+        def injecting = new CountDownLatch(1)
+        def injection = BackgroundInjection.submit(agent.toComputer(), { injecting.await() })
+
+        when:
+        def build = job.scheduleBuild2(0)
+        Thread.sleep(3000)
+
+        then:
+        !injection.done
+        agent.toComputer().idle
+        j.jenkins.queue.items.length == 1
+
+        when:
+        injecting.countDown()
+        injection.get(60, TimeUnit.SECONDS)
+        def run = j.assertBuildStatus(Result.SUCCESS, build.get(60, TimeUnit.SECONDS))
+
+        then:
+        j.jenkins.queue.items.length == 0
+        j.assertLogContains("on ${agent.nodeName}", run)
+
+        cleanup:
+        injecting.countDown()
+        BackgroundInjection.ENABLED = false
+
+        where:
+        type << ['freestyle', 'pipeline']
+    }
+
+    private FreeStyleProject freestyleJob() {
+        def job = j.createFreeStyleProject()
+        job.assignedLabel = Label.get('foo')
+        return job
+    }
+
+    private WorkflowJob pipelineJob() {
+        def job = j.createProject(WorkflowJob)
+        job.definition = new CpsFlowDefinition("node('foo') { echo \"on \${env.NODE_NAME}\" }", false)
+        return job
+    }
+}
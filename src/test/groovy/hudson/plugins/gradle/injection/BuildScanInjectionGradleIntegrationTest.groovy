@@ -194,6 +194,35 @@ class BuildScanInjectionGradleIntegrationTest extends BaseGradleInjectionIntegra
         gradleVersion << GRADLE_VERSIONS
     }
 
+    def 'sets the environment variables for each build'() {
+        given:
+        def gradleVersion = '7.5.1'
+        gradleInstallationRule.gradleVersion = gradleVersion
+        gradleInstallationRule.addInstallation()
+        BuildScanEnvironmentContributor.PER_BUILD = true
+
+        DumbSlave slave = createSlave()
+
+        FreeStyleProject p = j.createFreeStyleProject()
+        p.setAssignedNode(slave)
+
+        p.buildersList.add(buildScriptBuilder())
+        p.buildersList.add(new Gradle(tasks: 'hello', gradleName: gradleVersion, switches: "--no-daemon"))
+
+        when:
+        // first build to download Gradle
+        j.buildAndAssertSuccess(p)
+        enableBuildInjection(slave, gradleVersion)
+        def build = j.buildAndAssertSuccess(p)
+
+        then:
+        j.assertLogContains(MSG_INIT_SCRIPT_APPLIED, build)
+        slave.getNodeProperty(EnvironmentVariablesNodeProperty.class)?.envVars?.get("JENKINSGRADLEPLUGIN_GRADLE_ENTERPRISE_URL") == null
+
+        cleanup:
+        BuildScanEnvironmentContributor.PER_BUILD = false
+    }
+
     def 'Gradle #gradleVersion - pipeline - conditional build scan publication'(String gradleVersion) {
         given:
         gradleInstallationRule.gradleVersion = gradleVersion
@@ -323,6 +352,46 @@ class BuildScanInjectionGradleIntegrationTest extends BaseGradleInjectionIntegra
         gradleVersion << GRADLE_VERSIONS
     }
 
+    def 'injection is enabled and disabled based on node label expressions'() {
+        given:
+        def gradleVersion = '7.5.1'
+
+        gradleInstallationRule.gradleVersion = gradleVersion
+        gradleInstallationRule.addInstallation()
+
+        DumbSlave slave = createSlave()
+
+        File initScript = initScriptFile(slave, gradleVersion)
+
+        when:
+        withInjectionConfig {
+            gradleInjectionEnabledNodes = labels('foo && !bar')
+        }
+        enableBuildInjection(slave, gradleVersion)
+
+        then:
+        initScript.exists()
+
+        when:
+        withInjectionConfig {
+            gradleInjectionEnabledNodes = null
+            gradleInjectionDisabledNodes = labels('bar || foo')
+        }
+        restartSlave(slave)
+
+        then:
+        !initScript.exists()
+
+        when:
+        withInjectionConfig {
+            gradleInjectionDisabledNodes = labels('foo && bar')
+        }
+        restartSlave(slave)
+
+        then:
+        initScript.exists()
+    }
+
     def "doesn't copy init script if already exists"() {
         given:
         def gradleVersion = '7.5.1'
@@ -394,6 +463,41 @@ class BuildScanInjectionGradleIntegrationTest extends BaseGradleInjectionIntegra
         thirdDigest == firstDigest
     }
 
+    def "restores the changed init script and Maven extensions of an agent"() {
+        given:
+        def gradleVersion = '7.5.1'
+
+        gradleInstallationRule.gradleVersion = gradleVersion
+        gradleInstallationRule.addInstallation()
+
+        DumbSlave agent = createSlave()
+        withInjectionConfig {
+            injectMavenExtension = true
+        }
+
+        def initScript = initScriptFile(agent, gradleVersion)
+
+        when:
+        enableBuildInjection(agent, gradleVersion)
+        def extensionDirectory = agent.toComputer().node.rootPath.child(MavenExtensionsHandler.LIB_DIR_PATH)
+        def extension = extensionDirectory.child(MavenExtensionsHandler.MavenExtension.GRADLE_ENTERPRISE.targetJarName)
+
+        then:
+        initScript.exists()
+        extension.exists()
+        def initScriptDigest = Util.getDigestOf(initScript)
+        def extensionDigest = extension.digest()
+
+        when:
+        initScript << "\n// comment"
+        extension.write('changed', 'UTF-8')
+        restartSlave(agent)
+
+        then:
+        Util.getDigestOf(initScript) == initScriptDigest
+        extension.digest() == extensionDigest
+    }
+
     def "sets all mandatory environment variables"() {
         given:
         def gradleVersion = '7.5.1'
@@ -0,0 +1,193 @@
+package hudson.plugins.gradle.injection
+
+import hudson.ExtensionList
+import hudson.XmlFile
+import hudson.model.Node
+import hudson.model.Saveable
+import hudson.model.listeners.SaveableListener
+import hudson.slaves.DumbSlave
+import hudson.slaves.EnvironmentVariablesNodeProperty
+import hudson.slaves.RetentionStrategy
+import org.junit.Rule
+import org.junit.rules.RuleChain
+import org.jvnet.hudson.test.TestExtension
+
+import java.util.concurrent.Callable
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class BuildScanInjectionListenerTest extends BaseInjectionIntegrationTest {
+
+    @Rule
+    public final RuleChain rules = RuleChain.outerRule(noSpaceInTmpDirs).around(j)
+
+    def 'injects into all agents when the configuration changes'() {
+        given:
+        def agents = (1..3).collect { createSlave('foo') }
+        turnOnInjection()
+
+        when:
+        listener().injectIntoAllAgents().get(60, TimeUnit.SECONDS)
+
+        then:
+        agents.every { extensionDirectory(it).list().size() == 3 }
+        agents.every { status(it)?.outcome == InjectionStatus.Outcome.SUCCEEDED }
+    }
+
+    def 'skips the agents which are up to date'() {
+        given:
+        def unchanged = createSlave('foo')
+        def changed = createSlave('foo')
+        turnOnInjection()
+        listener().injectIntoAllAgents().get(60, TimeUnit.SECONDS)
+        def unchangedStatus = status(unchanged)
+        def changedStatus = status(changed)
+
+        when:
+        EnvUtil.setEnvVar(changed, 'FOO', 'bar')
+        listener().injectIntoAllAgents().get(60, TimeUnit.SECONDS)
+
+        then:
+        status(unchanged).is(unchangedStatus)
+        !status(changed).is(changedStatus)
+        status(changed).outcome == InjectionStatus.Outcome.SUCCEEDED
+
+        when:
+        withInjectionConfig {
+            allowUntrusted = true
+        }
+        listener().injectIntoAllAgents().get(60, TimeUnit.SECONDS)
+
+        then:
+        !status(unchanged).is(unchangedStatus)
+    }
+
+    def 'skips the built-in node when it is up to date'() {
+        given:
+        turnOnInjection()
+        listener().injectIntoAllAgents().get(60, TimeUnit.SECONDS)
+        def builtInStatus = builtInStatus()
+
+        when:
+        listener().injectIntoAllAgents().get(60, TimeUnit.SECONDS)
+
+        then:
+        builtInStatus.outcome == InjectionStatus.Outcome.SUCCEEDED
+        builtInStatus().is(builtInStatus)
+    }
+
+    def 'adding an agent does not wait for the injection into the other agents'() {
+        given:
+        def agent = createSlave('foo')
+        turnOnInjection()
+        def added = new DumbSlave('added', '', j.createTmpDir().path, '1', Node.Mode.NORMAL, 'foo',
+            j.createComputerLauncher(null), RetentionStrategy.NOOP, [])
+        def executor = Executors.newSingleThreadExecutor()
+
+        when:
+        // Adding the node notifies the listener while holding the queue lock, which saving the other agent waits for
+        executor.submit({ j.jenkins.addNode(added) } as Callable).get(60, TimeUnit.SECONDS)
+        listener().injectIntoAllAgents().get(60, TimeUnit.SECONDS)
+
+        then:
+        j.jenkins.getNode('added') != null
+        extensionDirectory(agent).list().size() == 3
+        status(agent).outcome == InjectionStatus.Outcome.SUCCEEDED
+
+        cleanup:
+        executor.shutdownNow()
+    }
+
+    def 'injects only into the agent whose labels changed'() {
+        given:
+        def unchanged = createSlave('foo')
+        def edited = createSlave('foo')
+        turnOnInjection()
+        listener().injectIntoAllAgents().get(60, TimeUnit.SECONDS)
+        def unchangedStatus = status(unchanged)
+        def editedStatus = status(edited)
+
+        when:
+        // Replacing the node, like its configuration page does, notifies the listener of a configuration change
+        def replacement = new DumbSlave(edited.nodeName, edited.nodeDescription, edited.remoteFS, '1',
+            Node.Mode.NORMAL, 'foo bar', edited.launcher, RetentionStrategy.NOOP, [])
+        j.jenkins.nodesObject.replaceNode(edited, replacement)
+        listener().injectIntoAllAgents().get(60, TimeUnit.SECONDS)
+
+        then:
+        status(unchanged).is(unchangedStatus)
+        !status(edited).is(editedStatus)
+        status(edited).outcome == InjectionStatus.Outcome.SUCCEEDED
+    }
+
+    def 'sets the variables of all injections with a single save of the agent'() {
+        given:
+        def agent = createSlave('foo')
+        listener().injectIntoAllAgents().get(60, TimeUnit.SECONDS)
+        withInjectionConfig {
+            enabled = true
+            server = 'https://scans.gradle.com'
+            gradlePluginVersion = '3.11.1'
+            injectMavenExtension = true
+        }
+        def saves = NodeSaves.of(agent)
+
+        when:
+        listener().injectIntoAllAgents().get(60, TimeUnit.SECONDS)
+
+        then:
+        NodeSaves.of(agent) == saves + 1
+        def envVars = agent.nodeProperties.get(EnvironmentVariablesNodeProperty).envVars
+        envVars.containsKey('JENKINSGRADLEPLUGIN_GRADLE_ENTERPRISE_PLUGIN_VERSION')
+        envVars.containsKey('JENKINSGRADLEPLUGIN_MAVEN_PLUGIN_CONFIG_EXT_CLASSPATH')
+        envVars.containsKey('MAVEN_OPTS')
+    }
+
+    private void turnOnInjection() {
+        withInjectionConfig {
+            enabled = true
+            server = 'https://scans.gradle.com'
+            injectMavenExtension = true
+            injectCcudExtension = true
+        }
+    }
+
+    private static BuildScanInjectionListener listener() {
+        return ExtensionList.lookupSingleton(BuildScanInjectionListener.class)
+    }
+
+    private static InjectionStatus status(DumbSlave agent) {
+        return listener().statuses.find { it.agent == agent.nodeName }
+    }
+
+    private InjectionStatus builtInStatus() {
+        return listener().statuses.find { it.agent == j.jenkins.toComputer().displayName }
+    }
+
+    private static extensionDirectory(DumbSlave agent) {
+        return agent.toComputer().node.rootPath.child(MavenExtensionsHandler.LIB_DIR_PATH)
+    }
+
+    /**
+     * Counts the saves of each node.
+     */
+    @TestExtension
+    static class NodeSaves extends SaveableListener {
+
+        private static final Map<String, AtomicInteger> SAVES = new ConcurrentHashMap<>()
+
+        static int of(DumbSlave agent) {
+            return SAVES.get(agent.nodeName)?.get() ?: 0
+        }
+
+        @Override
+        void onChange(Saveable o, XmlFile file) {
+            def nodeDirectory = file.file.parentFile
+            if (nodeDirectory?.parentFile?.name == 'nodes') {
+                SAVES.computeIfAbsent(nodeDirectory.name, { new AtomicInteger() }).incrementAndGet()
+            }
+        }
+    }
+}
@@ -141,6 +141,27 @@ class BuildScanInjectionMavenIntegrationTest extends BaseInjectionIntegrationTes
         getMavenOptsFromNodeProperties(slave) == ""
     }
 
+    def 'records the status of the last injection into each agent'() {
+        when:
+        def slave = createSlaveAndTurnOnInjection()
+        turnOnBuildInjectionAndRestart(slave)
+
+        then:
+        def statuses = j.jenkins.getExtensionList(InjectionStatusLink.class).get(0).agents
+        def status = statuses.find { it.agent == slave.nodeName }
+        status != null
+        status.outcome == InjectionStatus.Outcome.SUCCEEDED
+        status.failure == null
+        status.bytesTransferred > 0
+        status.duration >= status.mavenExtensionsDuration
+
+        when:
+        def api = j.createWebClient().goTo('gradleInjectionStatus/api/json', 'application/json').webResponse.contentAsString
+
+        then:
+        api.contains('"agent":"' + slave.nodeName + '"')
+    }
+
     def 'build scan is published without GE plugin with simple pipeline'() {
         given:
         createSlaveAndTurnOnInjection()
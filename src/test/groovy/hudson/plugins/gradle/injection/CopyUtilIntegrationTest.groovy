@@ -0,0 +1,68 @@
+package hudson.plugins.gradle.injection
+
+import hudson.plugins.gradle.injection.MavenExtensionsHandler.MavenExtension
+import org.junit.Rule
+import org.junit.rules.RuleChain
+import spock.lang.Unroll
+
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class CopyUtilIntegrationTest extends BaseInjectionIntegrationTest {
+
+    private static final String INIT_SCRIPT = 'init-script.gradle'
+
+    @Rule
+    public final RuleChain rules = RuleChain.outerRule(noSpaceInTmpDirs).around(j)
+
+    @Unroll
+    def "transfers #resourceName compressed to an agent"(String resourceName) {
+        given:
+        def agent = createSlave('foo')
+        def target = agent.rootPath.child("transfers/${resourceName}")
+
+        when:
+        def recorder = InjectionRecorder.start(agent.nodeName)
+        CopyUtil.copyResourceToNode(target, resourceName)
+        def status = recorder.stop(InjectionStatus.Outcome.SUCCEEDED)
+
+        then:
+        target.isRemote()
+        target.digest() == CopyUtil.unsafeResourceDigest(resourceName)
+        status.bytesTransferred > 0
+        if (resourceName == INIT_SCRIPT) {
+            assert status.bytesTransferred < target.length()
+        }
+
+        where:
+        resourceName << MavenExtension.values()*.embeddedJarName + [INIT_SCRIPT]
+    }
+
+    def "waits for a free transfer before transferring a resource"() {
+        given:
+        def agent = createSlave('foo')
+        def target = agent.rootPath.child("transfers/${INIT_SCRIPT}")
+        def executor = Executors.newSingleThreadExecutor()
+        CopyUtil.TRANSFERS.acquire(CopyUtil.MAX_CONCURRENT_TRANSFERS)
+
+        when:
+        def copy = executor.submit({ CopyUtil.copyResourceToNode(target, INIT_SCRIPT) } as Callable)
+        Thread.sleep(1000)
+
+        then:
+        !copy.done
+        !target.exists()
+
+        when:
+        CopyUtil.TRANSFERS.release()
+        copy.get(60, TimeUnit.SECONDS)
+
+        then:
+        target.digest() == CopyUtil.unsafeResourceDigest(INIT_SCRIPT)
+
+        cleanup:
+        CopyUtil.TRANSFERS.release(CopyUtil.MAX_CONCURRENT_TRANSFERS - CopyUtil.TRANSFERS.availablePermits())
+        executor.shutdownNow()
+    }
+}
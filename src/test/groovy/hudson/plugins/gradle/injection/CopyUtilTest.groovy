@@ -0,0 +1,55 @@
+package hudson.plugins.gradle.injection
+
+import hudson.Util
+import hudson.plugins.gradle.injection.MavenExtensionsHandler.MavenExtension
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class CopyUtilTest extends Specification {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder()
+
+    def "detects missing and changed files"() {
+        given:
+        def unchanged = tempFolder.newFile()
+        unchanged.text = 'unchanged'
+        def changed = tempFolder.newFile()
+        changed.text = 'changed'
+        def missing = new File(tempFolder.root, 'missing')
+        def unexpected = tempFolder.newFile()
+        def absent = new File(tempFolder.root, 'absent')
+
+        when:
+        def changedFiles = CopyUtil.changedFiles(null, [
+            (unchanged.path) : Util.getDigestOf('unchanged'),
+            (changed.path)   : Util.getDigestOf('expected'),
+            (missing.path)   : Util.getDigestOf('missing'),
+            (unexpected.path): null,
+            (absent.path)    : null
+        ])
+
+        then:
+        changedFiles == [changed.path, missing.path, unexpected.path] as Set
+    }
+
+    @Unroll
+    def "precomputed digest of #resourceName matches the resource"(String resourceName) {
+        given:
+        def resource = "/hudson/plugins/gradle/injection/${resourceName}"
+        def digests = new Properties()
+        getClass().getResourceAsStream('/hudson/plugins/gradle/injection/resource-digests.properties').withStream {
+            digests.load(it)
+        }
+
+        expect:
+        digests.getProperty("${resourceName}.md5") == getClass().getResourceAsStream(resource).withStream { Util.getDigestOf(it) }
+        CopyUtil.unsafeResourceDigest(resourceName) == digests.getProperty("${resourceName}.md5")
+        CopyUtil.unsafeResourceSha256(resourceName) == digests.getProperty("${resourceName}.sha256")
+
+        where:
+        resourceName << MavenExtension.values()*.embeddedJarName + ['init-script.gradle']
+    }
+}
@@ -0,0 +1,68 @@
+package hudson.plugins.gradle.injection
+
+import hudson.model.Node
+import hudson.slaves.ComputerLauncher
+import hudson.slaves.DumbSlave
+import hudson.slaves.EnvironmentVariablesNodeProperty
+import hudson.slaves.RetentionStrategy
+import org.junit.Rule
+import org.junit.rules.RuleChain
+
+class EnvUtilTest extends BaseInjectionIntegrationTest {
+
+    @Rule
+    public final RuleChain rules = RuleChain.outerRule(noSpaceInTmpDirs).around(j)
+
+    def "sets the environment variables of a node with a single update"() {
+        given:
+        def node = new CountingSaves(j.createComputerLauncher(null))
+        // The node properties may be saved while the node is created
+        def saves = node.saves
+
+        when:
+        def changed = EnvUtil.setEnvVars(node, [FOO: 'foo', BAR: 'bar', BAZ: null])
+
+        then:
+        changed
+        node.saves == saves + 1
+        node.nodeProperties.getAll(EnvironmentVariablesNodeProperty).size() == 1
+        envVars(node) == [FOO: 'foo', BAR: 'bar']
+
+        when:
+        changed = EnvUtil.setEnvVars(node, [FOO: 'changed', BAR: null, BAZ: 'baz'])
+
+        then:
+        changed
+        node.saves == saves + 2
+        node.nodeProperties.getAll(EnvironmentVariablesNodeProperty).size() == 1
+        envVars(node) == [FOO: 'changed', BAZ: 'baz']
+
+        when:
+        changed = EnvUtil.setEnvVars(node, [FOO: 'changed', BAR: null])
+
+        then:
+        !changed
+        node.saves == saves + 2
+    }
+
+    private static Map<String, String> envVars(Node node) {
+        return new HashMap<>(node.nodeProperties.get(EnvironmentVariablesNodeProperty).envVars)
+    }
+
+    /**
+     * Counts the saves instead of saving, the node is not added to Jenkins.
+     */
+    static class CountingSaves extends DumbSlave {
+
+        int saves
+
+        CountingSaves(ComputerLauncher launcher) {
+            super('counting-saves', '', '/tmp', '1', Node.Mode.NORMAL, '', launcher, RetentionStrategy.NOOP, [])
+        }
+
+        @Override
+        void save() {
+            saves++
+        }
+    }
+}
@@ -2,8 +2,10 @@ package hudson.plugins.gradle.injection
 
 import com.gargoylesoftware.htmlunit.html.HtmlButton
 import com.gargoylesoftware.htmlunit.html.HtmlForm
+import hudson.model.labels.LabelAtom
 import hudson.slaves.EnvironmentVariablesNodeProperty
 import hudson.util.FormValidation
+import hudson.util.Secret
 import hudson.util.XStream2
 import spock.lang.Shared
 import spock.lang.Subject
@@ -193,6 +195,70 @@ class InjectionConfigTest extends BaseGradleInjectionIntegrationTest {
         accessKey << ["", "   "]
     }
 
+    def "publishes a snapshot of the configuration when changed"() {
+        given:
+        def config = InjectionConfig.get()
+        def before = config.snapshot
+
+        when:
+        config.enabled = true
+        config.server = 'https://localhost'
+        config.accessKey = Secret.fromString('secret')
+        config.gradleInjectionEnabledNodes = labels('foo')
+        def changed = config.snapshot
+
+        then:
+        changed.is(config.snapshot)
+        with(changed) {
+            version > before.version
+            enabled
+            server == 'https://localhost'
+            accessKey == 'secret'
+            gradleInjectionMatcher.matches([new LabelAtom('foo')])
+            !gradleInjectionMatcher.matches([new LabelAtom('bar')])
+        }
+
+        when:
+        config.save()
+
+        then:
+        with(config.snapshot) {
+            version > changed.version
+            server == 'https://localhost'
+        }
+    }
+
+    def "validates the configuration once when saved"() {
+        given:
+        def config = InjectionConfig.get()
+
+        when:
+        config.server = 'https://localhost'
+        config.gradlePluginVersion = 'not a version'
+        config.gradlePluginRepositoryUrl = 'not a url'
+        config.ccudPluginVersion = '1.8'
+        config.save()
+
+        then:
+        with(config.snapshot) {
+            missingGradleRequiredParameters
+            !missingMavenRequiredParameters
+            validGradlePluginRepositoryUrl == null
+            validCcudPluginVersion == '1.8'
+        }
+
+        when:
+        config.gradlePluginVersion = '3.11'
+        config.gradlePluginRepositoryUrl = 'https://plugins.gradle.org'
+        config.save()
+
+        then:
+        with(config.snapshot) {
+            !missingGradleRequiredParameters
+            validGradlePluginRepositoryUrl == 'https://plugins.gradle.org'
+        }
+    }
+
     private static InjectionConfig fromXml(String xml) {
         return (InjectionConfig) new XStream2().fromXML(xml)
     }
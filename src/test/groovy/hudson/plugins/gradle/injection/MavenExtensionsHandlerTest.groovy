@@ -43,6 +43,61 @@ class MavenExtensionsHandlerTest extends Specification {
         mavenExtension << MavenExtension.values()
     }
 
+    def "restores a changed extension from the cache on the agent"() {
+        given:
+        def folder = tempFolder.newFolder()
+        def root = new FilePath(folder)
+        def extensionFilePath = mavenExtensionsHandler.copyExtensionToAgent(MavenExtension.GRADLE_ENTERPRISE, root)
+        def originalDigest = extensionFilePath.digest()
+
+        def cacheDirectory = root.child(ResourceCache.CACHE_DIR_PATH)
+        def cachedExtension = cacheDirectory.list().find { it.name.endsWith(MavenExtension.GRADLE_ENTERPRISE.targetJarName) }
+        def cachedLastModified = cachedExtension.lastModified()
+
+        when:
+        extensionFilePath.write('changed', 'UTF-8')
+        mavenExtensionsHandler.copyExtensionToAgent(MavenExtension.GRADLE_ENTERPRISE, root)
+
+        then:
+        extensionFilePath.digest() == originalDigest
+        cacheDirectory.list().size() == 1
+        cachedExtension.digest() == originalDigest
+        cachedExtension.lastModified() >= cachedLastModified
+    }
+
+    def "only copies and deletes the changed extensions"() {
+        given:
+        def folder = tempFolder.newFolder()
+        def root = new FilePath(folder)
+        def extensions = EnumSet.of(MavenExtension.GRADLE_ENTERPRISE, MavenExtension.CONFIGURATION)
+        def ccudExtensionFilePath = mavenExtensionsHandler.copyExtensionToAgent(MavenExtension.CCUD, root)
+
+        when:
+        def digests = mavenExtensionsHandler.getExtensionDigests(root, extensions)
+        def changedFiles = CopyUtil.changedFiles(null, digests)
+
+        then:
+        digests[ccudExtensionFilePath.remote] == null
+        changedFiles.size() == 3
+
+        when:
+        def extensionLocations = mavenExtensionsHandler.copyChangedExtensionsToAgent(root, extensions, changedFiles)
+
+        then:
+        extensionLocations.keySet() == extensions
+        extensionLocations.values().every { it.exists() }
+        !ccudExtensionFilePath.exists()
+        CopyUtil.changedFiles(null, digests).isEmpty()
+
+        when:
+        def geExtensionFilePath = extensionLocations[MavenExtension.GRADLE_ENTERPRISE]
+        geExtensionFilePath.write('changed', 'UTF-8')
+        mavenExtensionsHandler.copyChangedExtensionsToAgent(root, extensions, [] as Set)
+
+        then:
+        geExtensionFilePath.readToString() == 'changed'
+    }
+
     def "removes all files"() {
         given:
         def folder = tempFolder.newFolder()
@@ -65,4 +120,30 @@ class MavenExtensionsHandlerTest extends Specification {
         !geExtensionFilePath.exists()
         !ccudExtensionFilePath.exists()
     }
+
+    def "keeps the cache on the agent when removing all files"() {
+        given:
+        def folder = tempFolder.newFolder()
+        def root = new FilePath(folder)
+        def extensionFilePath = mavenExtensionsHandler.copyExtensionToAgent(MavenExtension.GRADLE_ENTERPRISE, root)
+
+        def cacheDirectory = root.child(ResourceCache.CACHE_DIR_PATH)
+        def cachedExtension = cacheDirectory.list().find { it.name.endsWith(MavenExtension.GRADLE_ENTERPRISE.targetJarName) }
+        def cachedDigest = cachedExtension.digest()
+
+        when:
+        mavenExtensionsHandler.deleteAllExtensionsFromAgent(root)
+
+        then:
+        !extensionFilePath.exists()
+        cacheDirectory.list() == [cachedExtension]
+        cachedExtension.digest() == cachedDigest
+
+        when:
+        mavenExtensionsHandler.copyExtensionToAgent(MavenExtension.GRADLE_ENTERPRISE, root)
+
+        then:
+        extensionFilePath.digest() == cachedDigest
+        cacheDirectory.list() == [cachedExtension]
+    }
 }
@@ -0,0 +1,35 @@
+package hudson.plugins.gradle.injection
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+@Unroll
+class MavenOptionsTest extends Specification {
+
+    private static final Set<String> KEYS = ['maven.ext.class.path', 'gradle.enterprise.url'].toSet()
+
+    def 'removes system properties - #mavenOpts'(String mavenOpts, String expected) {
+        expect:
+        MavenOptions.parse(mavenOpts).withoutSystemProperties(KEYS).asString() == expected
+
+        where:
+        mavenOpts                                                        || expected
+        null                                                             || ''
+        ''                                                               || ''
+        '  -Xmx1g   -Dfoo=bar '                                          || '-Xmx1g -Dfoo=bar'
+        '-Dmaven.ext.class.path=/a.jar -Xmx1g'                           || '-Xmx1g'
+        '-Xmx1g -Dgradle.enterprise.url=https://ge.example.com'          || '-Xmx1g'
+        '"-Dmaven.ext.class.path=/with space/a.jar" -Xmx1g'              || '-Xmx1g'
+        "-Dmaven.ext.class.path='/with space/a.jar' -Xmx1g"              || '-Xmx1g'
+        '-Dfoo="a b" -Dgradle.enterprise.url'                            || '-Dfoo="a b"'
+        '-Dmy.maven.ext.class.path=/a.jar -Dfoo=maven.ext.class.path'    || '-Dmy.maven.ext.class.path=/a.jar -Dfoo=maven.ext.class.path'
+    }
+
+    def 'appends system properties'() {
+        expect:
+        MavenOptions.parse('-Dmaven.ext.class.path=/old.jar -Xmx1g')
+            .withoutSystemProperties(KEYS)
+            .withSystemProperties([new SystemProperty('maven.ext.class.path', '/new.jar')])
+            .asString() == '-Xmx1g -Dmaven.ext.class.path=/new.jar'
+    }
+}